@@ -39,9 +39,81 @@ CREATE TABLE `results` (
   `overHeadIncurred` int(11) NOT NULL,
   `messageOverHeadIncurred` int(11) NOT NULL,
   `updateRate` double NOT NULL,
+  `numServers` int(11) NOT NULL DEFAULT '8',
+  `routing` varchar(45) NOT NULL DEFAULT 'AllMinimal',
+  `diameter` int(11) NOT NULL DEFAULT '0',
+  `averageHops` double NOT NULL DEFAULT '0',
+  `linkScheduling` varchar(45) NOT NULL DEFAULT 'FIFO',
+  `linkRate` int(11) NOT NULL DEFAULT '0',
+  `avgLinkUtilization` double NOT NULL DEFAULT '0',
+  `maxLinkUtilization` double NOT NULL DEFAULT '0',
+  `avgQueueingDelay` double NOT NULL DEFAULT '0',
+  `maxQueueingDelay` int(11) NOT NULL DEFAULT '0',
+  `frameWindow` int(11) NOT NULL DEFAULT '0',
+  `framesSent` bigint(20) NOT NULL DEFAULT '0',
+  `avgMessagesPerFrame` double NOT NULL DEFAULT '0',
+  `eventsProcessed` bigint(20) NOT NULL DEFAULT '0',
+  `multicast` tinyint(1) NOT NULL DEFAULT '0',
+  `avgResponseTime` double NOT NULL DEFAULT '0',
+  `responseTime95` int(11) NOT NULL DEFAULT '0',
+  `adaptiveAdmission` tinyint(1) NOT NULL DEFAULT '0',
+  `avgAdmissionLimit` double NOT NULL DEFAULT '0',
+  `earlyAbort` tinyint(1) NOT NULL DEFAULT '0',
+  `earlyAborts` int(11) NOT NULL DEFAULT '0',
+  `restartPolicy` varchar(45) NOT NULL DEFAULT 'FixedDelay',
+  `numRestarted` int(11) NOT NULL DEFAULT '0',
+  `repeatedAborts` int(11) NOT NULL DEFAULT '0',
+  `avgRestartDelay` double NOT NULL DEFAULT '0',
+  `updateLocks` tinyint(1) NOT NULL DEFAULT '0',
+  `conversionWaits` int(11) NOT NULL DEFAULT '0',
   PRIMARY KEY (`id`)
 ) ENGINE=InnoDB AUTO_INCREMENT=2 DEFAULT CHARSET=utf8;
 /*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `paired_results`
+--
+
+DROP TABLE IF EXISTS `paired_results`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `paired_results` (
+  `id` int(10) unsigned NOT NULL AUTO_INCREMENT,
+  `experimentNumber` bigint(15) NOT NULL,
+  `workload` varchar(100) NOT NULL,
+  `runA` varchar(200) NOT NULL,
+  `runB` varchar(200) NOT NULL,
+  `pcotA` double NOT NULL,
+  `pcotB` double NOT NULL,
+  `numPairs` int(11) NOT NULL,
+  `meanDifference` double NOT NULL,
+  `stdError` double NOT NULL,
+  PRIMARY KEY (`id`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+/*!40101 SET character_set_client = @saved_cs_client */;
+
+--
+-- Table structure for table `link_results`
+--
+
+DROP TABLE IF EXISTS `link_results`;
+/*!40101 SET @saved_cs_client     = @@character_set_client */;
+/*!40101 SET character_set_client = utf8 */;
+CREATE TABLE `link_results` (
+  `id` int(10) unsigned NOT NULL AUTO_INCREMENT,
+  `resultID` int(10) unsigned NOT NULL,
+  `src` int(11) NOT NULL,
+  `dest` int(11) NOT NULL,
+  `messagesSent` int(11) NOT NULL,
+  `sizeSent` bigint(20) NOT NULL,
+  `busyTime` bigint(20) NOT NULL,
+  `utilization` double NOT NULL,
+  `avgQueueingDelay` double NOT NULL,
+  `maxQueueingDelay` int(11) NOT NULL,
+  PRIMARY KEY (`id`),
+  KEY `resultID` (`resultID`)
+) ENGINE=InnoDB DEFAULT CHARSET=utf8;
+/*!40101 SET character_set_client = @saved_cs_client */;
 /*!40103 SET TIME_ZONE=@OLD_TIME_ZONE */;
 
 /*!40101 SET SQL_MODE=@OLD_SQL_MODE */;
@@ -3,19 +3,25 @@ package main;
 import exceptions.WTFException;
 import results.DBConnection;
 import results.ExperimentResults;
+import results.LinkResults;
+import results.PairedDifference;
+import simulator.SimParams;
 import simulator.SimSetupParams;
 import simulator.Simulation;
+import simulator.enums.LinkScheduling;
+import simulator.enums.RoutingPolicy;
 import simulator.enums.Topology;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.protocols.deadlockDetection.WFG.Graph;
 import simulator.protocols.deadlockDetection.WFG.WFGNode;
 import simulator.server.Server;
-import simulator.server.network.HyperCube;
+import simulator.server.network.NetworkConnection;
+import simulator.server.transactionManager.Workload;
 import stats.Statistics;
 import ui.*;
 import javax.swing.*;
 import java.io.*;
-import java.util.List;
+import java.util.*;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
 import java.util.function.Supplier;
@@ -44,6 +50,12 @@ public class Main {
 
         String SEEDs = "";
         String topologyStr = "";
+        String numServersStr = "";
+        String routingStr = "";
+        String linkSchedulingStr = "";
+        String linkRateStr = "";
+        String frameWindowStr = "";
+        String multicastStr = "";
         String numPagesStr = "";
         String arrivalRateStr = "";
         String DDPs = "";
@@ -53,12 +65,24 @@ public class Main {
         String maxActiveTransStr = "";
         String agentsHistoryLengthStr = "";
         String updateRateStr = "";
+        boolean commonRandomNumbers = false;
+        int retention = SimParams.DEFAULT_RETENTION;
+        boolean adaptiveAdmission = false;
+        boolean earlyAbort = false;
+        String restartPolicy = "FixedDelay";
+        boolean updateLocks = false;
 
         try (BufferedReader br = new BufferedReader(new FileReader(paramFile))) {
 
             Log.setLoggingEnabled(Boolean.parseBoolean(br.readLine().split(":")[1]));
             SEEDs = br.readLine().split(":")[1];
             topologyStr = br.readLine().split(":")[1];
+            numServersStr = br.readLine().split(":")[1];
+            routingStr = br.readLine().split(":")[1];
+            linkSchedulingStr = br.readLine().split(":")[1];
+            linkRateStr = br.readLine().split(":")[1];
+            frameWindowStr = br.readLine().split(":")[1];
+            multicastStr = br.readLine().split(":")[1];
             numPagesStr = br.readLine().split(":")[1];
             arrivalRateStr = br.readLine().split(":")[1];
             DDPs = br.readLine().split(":")[1];
@@ -68,6 +92,12 @@ public class Main {
             maxActiveTransStr = br.readLine().split(":")[1];
             agentsHistoryLengthStr = br.readLine().split(":")[1];
             updateRateStr = br.readLine().split(":")[1];
+            commonRandomNumbers = Boolean.parseBoolean(br.readLine().split(":")[1]);
+            retention = Integer.parseInt(br.readLine().split(":")[1]);
+            adaptiveAdmission = Boolean.parseBoolean(br.readLine().split(":")[1]);
+            earlyAbort = Boolean.parseBoolean(br.readLine().split(":")[1]);
+            restartPolicy = br.readLine().split(":")[1];
+            updateLocks = Boolean.parseBoolean(br.readLine().split(":")[1]);
 
         } catch (IOException e) {
             e.printStackTrace();
@@ -75,7 +105,7 @@ public class Main {
 
         //This is just to tell you how many simulations will be run with the parameters chosen
 
-        int numberOfSims = SEEDs.split(",").length * topologyStr.split(",").length * numPagesStr.split(",").length
+        int numberOfSims = SEEDs.split(",").length * topologyStr.split(",").length * numServersStr.split(",").length * routingStr.split(",").length * linkSchedulingStr.split(",").length * linkRateStr.split(",").length * frameWindowStr.split(",").length * multicastStr.split(",").length * numPagesStr.split(",").length
                 * arrivalRateStr.split(",").length * DDPs.split(",").length * DRPs.split(",").length * PPs.split(",").length
                 * DetectIntervals.split(",").length * maxActiveTransStr.split(",").length * updateRateStr.split(",").length;
 
@@ -93,13 +123,36 @@ public class Main {
 
 
 
+        final boolean useCommonRandomNumbers = commonRandomNumbers;
+        final int retentionTicks = retention;
+        final boolean useAdaptiveAdmission = adaptiveAdmission;
+        final boolean useEarlyAbort = earlyAbort;
+        final String restartPolicyName = restartPolicy;
+        final boolean useUpdateLocks = updateLocks;
+
         //These nested loops are to loop through all the different parameter combinations
 
         for (String SEEDStr : SEEDs.split(",")) {
             long SEED = Long.parseLong(SEEDStr);
 
-            for (String topStr : topologyStr.split(",")) {
-                Topology topology = Topology.fromString(topStr);
+            //The simulations with this SEED share their workloads, they go once those simulations are done
+            Workload.Cache workloads = new Workload.Cache();
+
+            //Finished simulations with this SEED that used common random numbers, grouped by the workload they ran.
+            //Each new one is paired with the ones before it.
+            Map<String, List<PairedDifference.Run>> commonRandomNumberRuns = new HashMap<>();
+
+            for (NetworkSettings network : NetworkSettings.sweep(topologyStr, numServersStr, routingStr, linkSchedulingStr, linkRateStr, frameWindowStr, multicastStr)) {
+                String topStr = network.topStr;
+                Topology topology = network.topology;
+                int numServers = network.numServers;
+                String routStr = network.routStr;
+                RoutingPolicy routingPolicy = network.routingPolicy;
+                String linkSchedStr = network.linkSchedStr;
+                LinkScheduling linkScheduling = network.linkScheduling;
+                int linkRate = network.linkRate;
+                int frameWindow = network.frameWindow;
+                boolean multicast = network.multicast;
 
                 for (String nPagesStr : numPagesStr.split(",")) {
                     int numPages = Integer.parseInt(nPagesStr);
@@ -143,8 +196,8 @@ public class Main {
 
                                                         if (Log.isLoggingEnabled()) {
                                                             GUI gui = new GUI();
-                                                            gui.setTitle(SEED + ":" + numPages + ":" + maxActiveTrans + ":" + 8 + ":" + arrivalRate + ":" + DDP + ":" + DRP + ":" + PP + ":" + detectInterval + ":" + updateRate);
-                                                            Output output = new Output();
+                                                            gui.setTitle(SEED + ":" + numPages + ":" + maxActiveTrans + ":" + numServers + ":" + arrivalRate + ":" + DDP + ":" + DRP + ":" + PP + ":" + detectInterval + ":" + updateRate);
+                                                            Output output = new Output(numServers);
                                                             GraphVisualizer graphVisualizer = new GraphVisualizer();
                                                             DeadlockPanel dPanel = new DeadlockPanel();
                                                             gui.add(output, "Log");
@@ -172,18 +225,28 @@ public class Main {
                                                         }
 
                                                         //Setup params object
-                                                        SimSetupParams params = new SimSetupParams(SEED, numPages, maxActiveTrans, 8, arrivalRate, updateRate, detectInterval, DDP, DRP, PP, log, stats, getSleepTime, updateTime);
+                                                        SimSetupParams params = new SimSetupParams(SEED, numPages, maxActiveTrans, numServers, arrivalRate, updateRate, detectInterval, DDP, DRP, PP, log, stats, getSleepTime, updateTime);
                                                         params.setWfGraphConsumer(wfGraphConsumer);
                                                         params.setDeadlockListener(deadlockConsumer);
                                                         params.setDeadlockResolutionListener(deadlockResListener);
                                                         params.setAgentsHistoryLength(agentsHistoryLength);
+                                                        params.setCommonRandomNumbers(useCommonRandomNumbers);
+                                                        params.setWorkloadCache(workloads);
+                                                        params.setRetention(retentionTicks);
+                                                        params.setAdaptiveAdmission(useAdaptiveAdmission);
+                                                        params.setEarlyAbort(useEarlyAbort);
+                                                        params.setRestartPolicy(restartPolicyName);
+                                                        params.setUpdateLocks(useUpdateLocks);
+                                                        params.setRoutingPolicy(routingPolicy);
+                                                        params.setTopology(topology);
+                                                        params.setLinkScheduling(linkScheduling);
+                                                        params.setLinkRate(linkRate);
+                                                        params.setFrameWindow(frameWindow);
+                                                        params.setMulticast(multicast);
 
                                                         Simulation s = new Simulation(params);
 
-                                                        //Setup topology.. should be in the simulation constructor..
                                                         List<Server> servers = s.getServers();
-                                                        if (topology == Topology.HyperCube)
-                                                            HyperCube.setup(servers);
 
 
                                                         //Run the simulation
@@ -194,8 +257,49 @@ public class Main {
 
                                                         //Output results to the database
                                                         ExperimentResults expResults = new ExperimentResults(simNumber, PCOT, DDP, DRP, topStr, maxActiveTrans,
-                                                                arrivalRate, PP, numPages, detectInterval, overheadIncurred, messageOverheadIncurred, updateRate);
-                                                        DBConnection.insertResults(expResults);
+                                                                arrivalRate, PP, numPages, detectInterval, overheadIncurred, messageOverheadIncurred, updateRate, numServers, routStr, s.getTopology().getDiameter(), s.getTopology().getAverageHops(), linkSchedStr);
+
+                                                        //Link statistics
+                                                        int simulationTime = s.getSimParams().getTime();
+                                                        List<LinkResults> linkResults = new ArrayList<>();
+                                                        double totalUtilization = 0, maxUtilization = 0;
+                                                        for (NetworkConnection link : s.getLinks()) {
+                                                            double utilization = link.getUtilization(simulationTime);
+                                                            totalUtilization += utilization;
+                                                            maxUtilization = Math.max(maxUtilization, utilization);
+                                                            linkResults.add(new LinkResults(link.getSrc().getID(), link.getDest().getID(), link.getMessagesSent(), link.getSizeSent(),
+                                                                    link.getBusyTime(), utilization, link.getAverageQueueingDelay(), link.getMaxQueueingDelay()));
+                                                        }
+                                                        double averageUtilization = linkResults.isEmpty() ? 0 : totalUtilization / linkResults.size();
+                                                        expResults.setLinkStatistics(linkRate, averageUtilization, maxUtilization, stats.getAverageLinkQueueingDelay(), stats.getMaxLinkQueueingDelay());
+                                                        expResults.setFrameStatistics(frameWindow, stats.getFramesSent(), stats.getAverageMessagesPerFrame(), s.getEventsProcessed());
+                                                        expResults.setMulticast(multicast);
+                                                        expResults.setResponseTimeStatistics(stats.getAverageResponseTime(), stats.getResponseTimePercentile(0.95));
+                                                        expResults.setAdmissionStatistics(useAdaptiveAdmission, stats.getAverageAdmissionLimit());
+                                                        expResults.setEarlyAbortStatistics(useEarlyAbort, stats.getEarlyAborts());
+                                                        expResults.setRestartStatistics(restartPolicyName, stats.getNumAbortedAndRestarted(), stats.getRepeatedAborts(), stats.getAverageRestartDelay());
+                                                        expResults.setLockStatistics(useUpdateLocks, stats.getConversionWaits());
+
+                                                        int resultID = DBConnection.insertResults(expResults);
+                                                        if (resultID != -1)
+                                                            DBConnection.insertLinkResults(resultID, linkResults);
+
+                                                        //Pair this simulation with every other one that saw the same transactions
+                                                        Workload workload = s.getSimParams().getWorkload();
+                                                        if (workload != null) {
+                                                            String label = topStr + ":" + routStr + ":" + linkSchedStr + ":" + linkRate + ":" + frameWindow + ":" + multicast + ":" + maxActiveTrans + ":" + DDP + ":" + DRP + ":" + PP + ":" + detectInterval + ":" + agentsHistoryLength;
+                                                            PairedDifference.Run run = new PairedDifference.Run(label, PCOT, (BitSet) stats.getCompletedOnTimeTrans().clone());
+
+                                                            List<PairedDifference.Run> earlierRuns;
+                                                            synchronized (commonRandomNumberRuns) {
+                                                                List<PairedDifference.Run> runs = commonRandomNumberRuns.computeIfAbsent(workload.getKey(), k -> new ArrayList<>());
+                                                                earlierRuns = new ArrayList<>(runs);
+                                                                runs.add(run);
+                                                            }
+
+                                                            for (PairedDifference.Run earlierRun : earlierRuns)
+                                                                DBConnection.insertPairedDifference(new PairedDifference(simNumber, workload.getKey(), run, earlierRun, workload.getNumTransactions()));
+                                                        }
 
 
                                                         StringBuilder sb = new StringBuilder();
@@ -203,7 +307,7 @@ public class Main {
                                                         sb.append("<html>--------------").append("<br>");
                                                         sb.append("<b>Parameters:</b><br>");
                                                         sb.append("SEED:").append(SEED).append("<br>NumPages:").append(numPages).append("<br>Max active trans:").append(maxActiveTrans).append("<br>servers:")
-                                                                .append(8).append("<br>arrival rate:").append(arrivalRate).append("<br>").append("<font color=\"red\">"+DDP+"</font>").append("<br>").append(DRP).append("<br>")
+                                                                .append(numServers).append("<br>arrival rate:").append(arrivalRate).append("<br>").append("<font color=\"red\">"+DDP+"</font>").append("<br>").append(DRP).append("<br>")
                                                                 .append(PP).append("<br>Detection interval:").append(detectInterval).append("<br>Update Rate: ").append(updateRate).append("<br>");
 
                                                         sb.append("Total Transactions: " + servers.size() * s.getSimParams().getNumTransPerServer()).append("<br><br>");
@@ -212,15 +316,28 @@ public class Main {
                                                         sb.append("Completed On Time: ").append(stats.getCompletedOnTime()).append("<br>");
                                                         sb.append("Completed Late: " + stats.getCompletedLate()).append("<br>");
                                                         sb.append("Aborted: " + stats.getNumAborted()).append("<br>");
-                                                        sb.append("Aborted and restarted: " + stats.getNumAbortedAndRestarted()).append("<br>");
+                                                        sb.append("Aborted and restarted: " + stats.getNumAbortedAndRestarted()).append(" (").append(restartPolicyName).append(", ").append(stats.getAverageRestartDelay()).append(" ticks on average)<br>");
+                                                        sb.append("Aborted again after a restart: " + stats.getRepeatedAborts()).append("<br>");
+                                                        if (useUpdateLocks)
+                                                            sb.append("Lock conversions that waited: " + stats.getConversionWaits()).append("<br>");
 
 
                                                         if (stats.getCompletedOnTime() + stats.getCompletedLate() + stats.getNumAborted() != servers.size() * s.getSimParams().getNumTransPerServer())
                                                             sb.append("ERROR: Completed + Late + Aborted != Total Num of Transactions!").append("<br>");
-                                                        sb.append("Timeouts: " + stats.getTimeouts()).append("<br><br>");
+                                                        sb.append("Timeouts: " + stats.getTimeouts()).append("<br>");
+                                                        if (useEarlyAbort)
+                                                            sb.append("Aborted early (predicted to miss the deadline): ").append(stats.getEarlyAborts()).append("<br>");
+                                                        sb.append("Response time (avg/95th percentile): ").append(stats.getAverageResponseTime()).append(" / ").append(stats.getResponseTimePercentile(0.95)).append("<br>");
+                                                        if (useAdaptiveAdmission)
+                                                            sb.append("Adaptive max active trans (avg): ").append(stats.getAverageAdmissionLimit()).append("<br>");
+                                                        sb.append("<br>");
 
                                                         sb.append("Overhead (ticks): ").append(overheadIncurred).append("<br>");
-                                                        sb.append("Total Message Size: ").append(messageOverheadIncurred).append("<br><br>");
+                                                        sb.append("Total Message Size: ").append(messageOverheadIncurred).append("<br>");
+                                                        sb.append("Link utilization (avg/max): ").append(averageUtilization).append(" / ").append(maxUtilization).append("<br>");
+                                                        sb.append("Link queueing delay (avg/max): ").append(stats.getAverageLinkQueueingDelay()).append(" / ").append(stats.getMaxLinkQueueingDelay()).append("<br>");
+                                                        sb.append("Frames sent: ").append(stats.getFramesSent()).append(" (").append(stats.getAverageMessagesPerFrame()).append(" messages per frame)<br>");
+                                                        sb.append("Events processed: ").append(s.getEventsProcessed()).append("<br><br>");
 
                                                         sb.append("Deadlocks found: ").append(stats.getDeadlocksFound()).append("<br>");
                                                         sb.append("Deadlocks resolved: ").append(stats.getDeadlocksResolved()).append("<br><br>");
@@ -256,6 +373,54 @@ public class Main {
         }
     }
 
+    /**
+     * One combination of the network parameters. They are swept together in one loop so adding one doesn't nest the
+     * simulation setup any deeper.
+     */
+    private static class NetworkSettings {
+        private final String topStr;
+        private final Topology topology;
+        private final int numServers;
+        private final String routStr;
+        private final RoutingPolicy routingPolicy;
+        private final String linkSchedStr;
+        private final LinkScheduling linkScheduling;
+        private final int linkRate;
+        private final int frameWindow;
+        private final boolean multicast;
+
+        private NetworkSettings(String topStr, int numServers, String routStr, String linkSchedStr, int linkRate, int frameWindow, boolean multicast) {
+            this.topStr = topStr;
+            this.topology = Topology.fromString(topStr);
+            this.numServers = numServers;
+            this.routStr = routStr;
+            this.routingPolicy = RoutingPolicy.fromString(routStr);
+            this.linkSchedStr = linkSchedStr;
+            this.linkScheduling = LinkScheduling.fromString(linkSchedStr);
+            this.linkRate = linkRate;
+            this.frameWindow = frameWindow;
+            this.multicast = multicast;
+        }
+
+        /**
+         * @return every combination of the comma separated values, in the order nested loops over them would give
+         */
+        private static List<NetworkSettings> sweep(String topologyStr, String numServersStr, String routingStr, String linkSchedulingStr,
+                                                   String linkRateStr, String frameWindowStr, String multicastStr) {
+            List<NetworkSettings> settings = new ArrayList<>();
+            for (String topStr : topologyStr.split(","))
+                for (String nServersStr : numServersStr.split(","))
+                    for (String routStr : routingStr.split(","))
+                        for (String linkSchedStr : linkSchedulingStr.split(","))
+                            for (String linkRtStr : linkRateStr.split(","))
+                                for (String frameWinStr : frameWindowStr.split(","))
+                                    for (String mcastStr : multicastStr.split(","))
+                                        settings.add(new NetworkSettings(topStr, Integer.parseInt(nServersStr), routStr, linkSchedStr,
+                                                Integer.parseInt(linkRtStr), Integer.parseInt(frameWinStr), Boolean.parseBoolean(mcastStr)));
+            return settings;
+        }
+    }
+
     private static void openSimExperimentNumberWindow(long simNumber) {
         JFrame frame = new JFrame("Experiment Number");
 
@@ -1,20 +1,27 @@
 package results;
 
 import java.sql.*;
+import java.util.List;
 
 /**
  * This class is used to insert database results into the database
  */
 public class DBConnection {
 
-    public static void insertResults(ExperimentResults results) {
+    /**
+     * @return the ID of the new row, -1 if it could not be inserted
+     */
+    public static int insertResults(ExperimentResults results) {
         Connection conn = null;
 
         try {
             conn = DriverManager.getConnection("jdbc:mysql://localhost/ddb_results?" + "user=root&password=thesis");
 
             PreparedStatement statement = conn.prepareStatement("INSERT INTO results(experimentNumber,pcot,deadlockDetectionProtocol,deadlockResolutionProtocol," +
-                    "topology,arrivalRate,priorityProtocol,numPages,detectionInterval,maxActiveTrans,overHeadIncurred,messageOverHeadIncurred,updateRate) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?)");
+                    "topology,arrivalRate,priorityProtocol,numPages,detectionInterval,maxActiveTrans,overHeadIncurred,messageOverHeadIncurred,updateRate,numServers,routing," +
+                    "diameter,averageHops,linkScheduling,linkRate,avgLinkUtilization,maxLinkUtilization,avgQueueingDelay,maxQueueingDelay,frameWindow,framesSent,avgMessagesPerFrame,eventsProcessed,multicast," +
+                    "avgResponseTime,responseTime95,adaptiveAdmission,avgAdmissionLimit,earlyAbort,earlyAborts," +
+                    "restartPolicy,numRestarted,repeatedAborts,avgRestartDelay,updateLocks,conversionWaits) VALUES (?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?,?)", Statement.RETURN_GENERATED_KEYS);
             statement.setLong  (1, results.getExpNum());
             statement.setDouble(2, results.getPCOT());
             statement.setString(3, results.getDDP());
@@ -28,9 +35,107 @@ public class DBConnection {
             statement.setInt   (11, results.getOverheadIncurred());
             statement.setInt   (12, results.getMessageOverheadIncurred());
             statement.setDouble(13, results.getUpdateRate());
+            statement.setInt   (14, results.getNumServers());
+            statement.setString(15, results.getRouting());
+            statement.setInt   (16, results.getDiameter());
+            statement.setDouble(17, results.getAverageHops());
+            statement.setString(18, results.getLinkScheduling());
+            statement.setInt   (19, results.getLinkRate());
+            statement.setDouble(20, results.getAverageLinkUtilization());
+            statement.setDouble(21, results.getMaxLinkUtilization());
+            statement.setDouble(22, results.getAverageQueueingDelay());
+            statement.setInt   (23, results.getMaxQueueingDelay());
+            statement.setInt   (24, results.getFrameWindow());
+            statement.setLong  (25, results.getFramesSent());
+            statement.setDouble(26, results.getAverageMessagesPerFrame());
+            statement.setLong  (27, results.getEventsProcessed());
+            statement.setBoolean(28, results.usesMulticast());
+            statement.setDouble(29, results.getAverageResponseTime());
+            statement.setInt   (30, results.getResponseTime95());
+            statement.setBoolean(31, results.usesAdaptiveAdmission());
+            statement.setDouble(32, results.getAverageAdmissionLimit());
+            statement.setBoolean(33, results.usesEarlyAbort());
+            statement.setInt   (34, results.getEarlyAborts());
+            statement.setString(35, results.getRestartPolicy());
+            statement.setInt   (36, results.getNumRestarted());
+            statement.setInt   (37, results.getRepeatedAborts());
+            statement.setDouble(38, results.getAverageRestartDelay());
+            statement.setBoolean(39, results.usesUpdateLocks());
+            statement.setInt   (40, results.getConversionWaits());
 
             statement.execute();
 
+            ResultSet keys = statement.getGeneratedKeys();
+            if (keys.next())
+                return keys.getInt(1);
+
+        } catch (SQLException ex) {
+            // handle any errors
+            System.out.println("SQLException: " + ex.getMessage());
+            System.out.println("SQLState: " + ex.getSQLState());
+            System.out.println("VendorError: " + ex.getErrorCode());
+        }
+        return -1;
+    }
+
+    public static void insertPairedDifference(PairedDifference diff) {
+        Connection conn = null;
+
+        try {
+            conn = DriverManager.getConnection("jdbc:mysql://localhost/ddb_results?" + "user=root&password=thesis");
+
+            PreparedStatement statement = conn.prepareStatement("INSERT INTO paired_results(experimentNumber,workload,runA,runB,pcotA,pcotB," +
+                    "numPairs,meanDifference,stdError) VALUES (?,?,?,?,?,?,?,?,?)");
+            statement.setLong  (1, diff.getExpNum());
+            statement.setString(2, diff.getWorkloadKey());
+            statement.setString(3, diff.getLabelA());
+            statement.setString(4, diff.getLabelB());
+            statement.setDouble(5, diff.getPcotA());
+            statement.setDouble(6, diff.getPcotB());
+            statement.setInt   (7, diff.getNumPairs());
+            statement.setDouble(8, diff.getMeanDifference());
+            statement.setDouble(9, diff.getStdError());
+
+            statement.execute();
+
+
+        } catch (SQLException ex) {
+            // handle any errors
+            System.out.println("SQLException: " + ex.getMessage());
+            System.out.println("SQLState: " + ex.getSQLState());
+            System.out.println("VendorError: " + ex.getErrorCode());
+        }
+    }
+
+    /**
+     * Inserts the statistics of every link of one simulation
+     *
+     * @param resultID the ID of the simulation's row in the results table
+     */
+    public static void insertLinkResults(int resultID, List<LinkResults> links) {
+        Connection conn = null;
+
+        try {
+            conn = DriverManager.getConnection("jdbc:mysql://localhost/ddb_results?" + "user=root&password=thesis");
+
+            PreparedStatement statement = conn.prepareStatement("INSERT INTO link_results(resultID,src,dest,messagesSent,sizeSent,busyTime," +
+                    "utilization,avgQueueingDelay,maxQueueingDelay) VALUES (?,?,?,?,?,?,?,?,?)");
+
+            for (LinkResults link : links) {
+                statement.setInt   (1, resultID);
+                statement.setInt   (2, link.getSrc());
+                statement.setInt   (3, link.getDest());
+                statement.setInt   (4, link.getMessagesSent());
+                statement.setLong  (5, link.getSizeSent());
+                statement.setLong  (6, link.getBusyTime());
+                statement.setDouble(7, link.getUtilization());
+                statement.setDouble(8, link.getAverageQueueingDelay());
+                statement.setInt   (9, link.getMaxQueueingDelay());
+                statement.addBatch();
+            }
+
+            statement.executeBatch();
+
 
         } catch (SQLException ex) {
             // handle any errors
@@ -15,10 +15,39 @@ public class ExperimentResults {
     private final int overheadIncurred;
     private final int messageOverheadIncurred;
     private final double updateRate;
+    private final int numServers;
+    private final String routing;
+    private final int diameter;
+    private final double averageHops;
+    private final String linkScheduling;
+
+    private int linkRate;
+    private double averageLinkUtilization;
+    private double maxLinkUtilization;
+    private double averageQueueingDelay;
+    private int maxQueueingDelay;
+    private int frameWindow;
+    private long framesSent;
+    private double averageMessagesPerFrame;
+    private long eventsProcessed;
+    private boolean multicast;
+    private double averageResponseTime;
+    private int responseTime95;
+    private boolean adaptiveAdmission;
+    private double averageAdmissionLimit;
+    private boolean earlyAbort;
+    private int earlyAborts;
+    private String restartPolicy;
+    private int numRestarted;
+    private int repeatedAborts;
+    private double averageRestartDelay;
+    private boolean updateLocks;
+    private int conversionWaits;
 
     public ExperimentResults(long expNum, double pcot, String ddp, String drp, String topology, int maxActiveTrans,
                              int arrivalRate, String PP, int numPages, int detectInterval, int overheadIncurred, int messageOverheadIncurred,
-                             double updateRate) {
+                             double updateRate, int numServers, String routing, int diameter, double averageHops,
+                             String linkScheduling) {
         this.expNum = expNum;
         PCOT = pcot;
         DDP = ddp;
@@ -32,6 +61,11 @@ public class ExperimentResults {
         this.overheadIncurred = overheadIncurred;
         this.messageOverheadIncurred = messageOverheadIncurred;
         this.updateRate = updateRate;
+        this.numServers = numServers;
+        this.routing = routing;
+        this.diameter = diameter;
+        this.averageHops = averageHops;
+        this.linkScheduling = linkScheduling;
     }
 
     public long getExpNum() {
@@ -83,4 +117,158 @@ public class ExperimentResults {
     }
 
     public double getUpdateRate() { return updateRate; }
-}
\ No newline at end of file
+
+    public int getNumServers() {
+        return numServers;
+    }
+
+    public String getRouting() {
+        return routing;
+    }
+
+    public int getDiameter() {
+        return diameter;
+    }
+
+    public double getAverageHops() {
+        return averageHops;
+    }
+
+    public String getLinkScheduling() {
+        return linkScheduling;
+    }
+
+    public void setLinkStatistics(int linkRate, double averageLinkUtilization, double maxLinkUtilization, double averageQueueingDelay, int maxQueueingDelay) {
+        this.linkRate = linkRate;
+        this.averageLinkUtilization = averageLinkUtilization;
+        this.maxLinkUtilization = maxLinkUtilization;
+        this.averageQueueingDelay = averageQueueingDelay;
+        this.maxQueueingDelay = maxQueueingDelay;
+    }
+
+    public int getLinkRate() {
+        return linkRate;
+    }
+
+    public double getAverageLinkUtilization() {
+        return averageLinkUtilization;
+    }
+
+    public double getMaxLinkUtilization() {
+        return maxLinkUtilization;
+    }
+
+    public double getAverageQueueingDelay() {
+        return averageQueueingDelay;
+    }
+
+    public int getMaxQueueingDelay() {
+        return maxQueueingDelay;
+    }
+
+    public void setFrameStatistics(int frameWindow, long framesSent, double averageMessagesPerFrame, long eventsProcessed) {
+        this.frameWindow = frameWindow;
+        this.framesSent = framesSent;
+        this.averageMessagesPerFrame = averageMessagesPerFrame;
+        this.eventsProcessed = eventsProcessed;
+    }
+
+    public int getFrameWindow() {
+        return frameWindow;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public double getAverageMessagesPerFrame() {
+        return averageMessagesPerFrame;
+    }
+
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
+    public boolean usesMulticast() {
+        return multicast;
+    }
+
+    public void setMulticast(boolean multicast) {
+        this.multicast = multicast;
+    }
+
+    public void setResponseTimeStatistics(double averageResponseTime, int responseTime95) {
+        this.averageResponseTime = averageResponseTime;
+        this.responseTime95 = responseTime95;
+    }
+
+    public double getAverageResponseTime() {
+        return averageResponseTime;
+    }
+
+    public int getResponseTime95() {
+        return responseTime95;
+    }
+
+    public void setAdmissionStatistics(boolean adaptiveAdmission, double averageAdmissionLimit) {
+        this.adaptiveAdmission = adaptiveAdmission;
+        this.averageAdmissionLimit = averageAdmissionLimit;
+    }
+
+    public boolean usesAdaptiveAdmission() {
+        return adaptiveAdmission;
+    }
+
+    public double getAverageAdmissionLimit() {
+        return averageAdmissionLimit;
+    }
+
+    public void setEarlyAbortStatistics(boolean earlyAbort, int earlyAborts) {
+        this.earlyAbort = earlyAbort;
+        this.earlyAborts = earlyAborts;
+    }
+
+    public boolean usesEarlyAbort() {
+        return earlyAbort;
+    }
+
+    public int getEarlyAborts() {
+        return earlyAborts;
+    }
+
+    public void setRestartStatistics(String restartPolicy, int numRestarted, int repeatedAborts, double averageRestartDelay) {
+        this.restartPolicy = restartPolicy;
+        this.numRestarted = numRestarted;
+        this.repeatedAborts = repeatedAborts;
+        this.averageRestartDelay = averageRestartDelay;
+    }
+
+    public String getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    public int getNumRestarted() {
+        return numRestarted;
+    }
+
+    public int getRepeatedAborts() {
+        return repeatedAborts;
+    }
+
+    public double getAverageRestartDelay() {
+        return averageRestartDelay;
+    }
+
+    public void setLockStatistics(boolean updateLocks, int conversionWaits) {
+        this.updateLocks = updateLocks;
+        this.conversionWaits = conversionWaits;
+    }
+
+    public boolean usesUpdateLocks() {
+        return updateLocks;
+    }
+
+    public int getConversionWaits() {
+        return conversionWaits;
+    }
+}
@@ -0,0 +1,59 @@
+package results;
+
+/**
+ * The statistics of one (one way) link in one simulation
+ */
+public class LinkResults {
+
+    private final int src;
+    private final int dest;
+    private final int messagesSent;
+    private final long sizeSent;
+    private final long busyTime;
+    private final double utilization;
+    private final double averageQueueingDelay;
+    private final int maxQueueingDelay;
+
+    public LinkResults(int src, int dest, int messagesSent, long sizeSent, long busyTime, double utilization, double averageQueueingDelay, int maxQueueingDelay) {
+        this.src = src;
+        this.dest = dest;
+        this.messagesSent = messagesSent;
+        this.sizeSent = sizeSent;
+        this.busyTime = busyTime;
+        this.utilization = utilization;
+        this.averageQueueingDelay = averageQueueingDelay;
+        this.maxQueueingDelay = maxQueueingDelay;
+    }
+
+    public int getSrc() {
+        return src;
+    }
+
+    public int getDest() {
+        return dest;
+    }
+
+    public int getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getSizeSent() {
+        return sizeSent;
+    }
+
+    public long getBusyTime() {
+        return busyTime;
+    }
+
+    public double getUtilization() {
+        return utilization;
+    }
+
+    public double getAverageQueueingDelay() {
+        return averageQueueingDelay;
+    }
+
+    public int getMaxQueueingDelay() {
+        return maxQueueingDelay;
+    }
+}
@@ -0,0 +1,97 @@
+package results;
+
+import java.util.BitSet;
+
+/**
+ * Paired-difference statistics between two simulations that used common random numbers.
+ * Since both simulations saw exactly the same transactions, each transaction is a pair: d = onTimeInA - onTimeInB which is -1, 0 or 1.
+ * The mean of d is the PCOT difference, and its standard error only reflects transactions whose outcome the protocols changed.
+ */
+public class PairedDifference {
+
+    private final long expNum;
+    private final String workloadKey;
+    private final String labelA;
+    private final String labelB;
+    private final double pcotA;
+    private final double pcotB;
+    private final int numPairs;
+    private final double meanDifference;
+    private final double stdError;
+
+    public PairedDifference(long expNum, String workloadKey, Run a, Run b, int numTransactions) {
+        this.expNum = expNum;
+        this.workloadKey = workloadKey;
+        labelA = a.label;
+        labelB = b.label;
+        pcotA = a.PCOT;
+        pcotB = b.PCOT;
+        numPairs = numTransactions;
+
+        BitSet onlyInA = (BitSet) a.completedOnTime.clone();
+        onlyInA.andNot(b.completedOnTime);
+        int onlyA = onlyInA.cardinality();
+
+        BitSet onlyInB = (BitSet) b.completedOnTime.clone();
+        onlyInB.andNot(a.completedOnTime);
+        int onlyB = onlyInB.cardinality();
+
+        meanDifference = ((double) (onlyA - onlyB)) / numPairs;
+
+        // d^2 is 1 exactly for the transactions in only one of the two sets
+        double meanSquare = ((double) (onlyA + onlyB)) / numPairs;
+        double variance = numPairs > 1 ? (meanSquare - meanDifference * meanDifference) * numPairs / (numPairs - 1) : 0;
+        stdError = Math.sqrt(variance / numPairs);
+    }
+
+    public long getExpNum() {
+        return expNum;
+    }
+
+    public String getWorkloadKey() {
+        return workloadKey;
+    }
+
+    public String getLabelA() {
+        return labelA;
+    }
+
+    public String getLabelB() {
+        return labelB;
+    }
+
+    public double getPcotA() {
+        return pcotA;
+    }
+
+    public double getPcotB() {
+        return pcotB;
+    }
+
+    public int getNumPairs() {
+        return numPairs;
+    }
+
+    public double getMeanDifference() {
+        return meanDifference;
+    }
+
+    public double getStdError() {
+        return stdError;
+    }
+
+    /**
+     * The outcome of one simulation that is needed to pair it with another
+     */
+    public static class Run {
+        private final String label;
+        private final double PCOT;
+        private final BitSet completedOnTime;
+
+        public Run(String label, double PCOT, BitSet completedOnTime) {
+            this.label = label;
+            this.PCOT = PCOT;
+            this.completedOnTime = completedOnTime;
+        }
+    }
+}
@@ -1,13 +1,17 @@
 package simulator;
 
+import simulator.enums.LinkScheduling;
+import simulator.enums.RoutingPolicy;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.protocols.priority.PriorityProtocol;
 import simulator.server.Server;
 import simulator.server.lockManager.Range;
+import simulator.server.lockManager.ReplicaIndex;
 import simulator.server.transactionManager.CohortTransaction;
 import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
+import simulator.server.transactionManager.Workload;
 import stats.Statistics;
 
 import java.util.*;
@@ -28,7 +32,17 @@ public class SimParams {
     public final List<Server> allServers = new ArrayList<>();
 
     public static final int diskReadWriteTime = 35;
+
+    /**
+     * Time to write each page after the first in a batched disk job, the disk does not have to seek for them
+     */
+    public static final int sequentialWriteTime = 10;
     public static final int processTime = 15;
+
+    /**
+     * Weight of the latest job in the disks' and CPUs' moving average queueing delay
+     */
+    public static final double QUEUEING_DELAY_WEIGHT = 0.1;
     public static int Bandwidth = 1000;
     public static int latency = 5;
     public final int arrivalRateMean;
@@ -47,13 +61,25 @@ public class SimParams {
         return numberOfServers;
     }
 
-    public final int numberOfServers = 8;
+    public final int numberOfServers;
     public int messageOverhead = 0;
 
     public static final int transactionTimeoutMean = 5000;
 
+    /**
+     * The default number of ticks finished transactions are kept for
+     */
+    public static final int DEFAULT_RETENTION = 1000;
+
+    /**
+     * Finished transactions are kept at least this long, so messages about them that are still on the way and their
+     * locks that haven't been released yet still find them
+     */
+    public static final int MIN_RETENTION = 1000;
+
 
     public final Map<Integer, Range> serverToPageRange = new HashMap<>();
+    private ReplicaIndex replicaIndex;
     public final Consumer<Event> eventQueue;
     public final Supplier<Double> rand;
     public final Supplier<Integer> timeProvider;
@@ -84,6 +110,24 @@ public class SimParams {
 
     public int globalDetectors = 2;
 
+    /**
+     * The pre-generated workload when common random numbers are used, null if transactions are generated as the simulation runs
+     */
+    private Workload workload;
+
+    private RoutingPolicy routingPolicy = RoutingPolicy.AllMinimal;
+    private Supplier<Double> routingRand;
+    private LinkScheduling linkScheduling = LinkScheduling.FIFO;
+    private int linkRate;
+    private int frameWindow;
+    private boolean multicast;
+    private int retention = DEFAULT_RETENTION;
+    private boolean adaptiveAdmission;
+    private boolean earlyAbort;
+    private boolean updateLocks;
+    private String restartPolicy = "FixedDelay";
+    private Supplier<Double> restartRand;
+
 
     /**
      * @param eventQueue          Interface to EventQueue. This is a reference to the method addEvent(Event e) in the class EventQueue. This allows any component in the simulation to add events.
@@ -98,10 +142,11 @@ public class SimParams {
      * @param incurOverhead
      * @param agentsHistoryLength
      * @param numPages
+     * @param numberOfServers
      */
     public SimParams(Supplier<Double> transGeneratorRand,Supplier<Double> transManagerRand, Consumer<Event> eventQueue, Supplier<Double> rand, Supplier<Integer> timeProvider, Supplier<Integer> IDProvider,
                      Supplier<Integer> pageNumProvider, int maxActiveTrans, int arrivalRate, Consumer<String> log, Statistics stats,
-                     BiConsumer<Integer, Integer> incurOverhead, int agentsHistoryLength, double updateRate, int numPages) {
+                     BiConsumer<Integer, Integer> incurOverhead, int agentsHistoryLength, double updateRate, int numPages, int numberOfServers) {
         this.transGeneratorRand = transGeneratorRand;
         this.transManagerRand = transManagerRand;
         this.eventQueue = eventQueue;
@@ -118,6 +163,7 @@ public class SimParams {
         this.agentsHistoryLength = agentsHistoryLength;
         this.updateRate = updateRate;
         this.numPages = numPages;
+        this.numberOfServers = numberOfServers;
 
         List<Integer> allServersList = new ArrayList<>();
         for (int i = 0; i < numberOfServers; i++)
@@ -125,14 +171,22 @@ public class SimParams {
         this.allServersList = Collections.unmodifiableList(allServersList);
     }
 
+    /**
+     * Servers i and i + numberOfServers/2 hold the same pages
+     */
+    public int getReplicaServer(int serverID) {
+        return (serverID + numberOfServers / 2) % numberOfServers;
+    }
+
+    /**
+     * @return the servers that have the page. The list is shared and can't be changed.
+     */
     public List<Integer> getServersWithPage(int pageNum) {
-        List<Integer> serverIDs = new ArrayList<>();
-        serverToPageRange.keySet().forEach(serverID -> {
-            Range range = serverToPageRange.get(serverID);
-            if (range.contains(pageNum))
-                serverIDs.add(serverID);
-        });
-        return serverIDs;
+        return replicaIndex.getServersWithPage(pageNum);
+    }
+
+    void setReplicaIndex(ReplicaIndex replicaIndex) {
+        this.replicaIndex = replicaIndex;
     }
 
     public int getNumTransPerServer() {
@@ -231,21 +285,18 @@ public class SimParams {
 
     /**
      * Used for integrity checking
+     *
      * Only gets master transactions, does not get cohorts
+     *
+     * @return true if the master transaction with this ID completed before the time.
+     * Only transactions that finished within the retention period are known exactly.
      */
-    public Map<Integer, Transaction> getAllTransactionsMap() {
-        Map<Integer, Transaction> allTrans = new HashMap<>();
-
-        for (Server s : allServers) {
-
-            List<Transaction> transactions = s.getTM().getAllMasterTransactions();
+    public boolean completedBefore(int transID, int time) {
+        for (Server s : allServers)
+            if (s.getTM().completedBefore(transID, time))
+                return true;
 
-            for (Transaction t : transactions)
-                if (!(t instanceof CohortTransaction))
-                    allTrans.put(t.getID(), t);
-        }
-
-        return allTrans;
+        return false;
     }
 
     /**
@@ -280,4 +331,138 @@ public class SimParams {
     public Supplier<Double> getTransManagerRand() {
         return transManagerRand;
     }
-}
\ No newline at end of file
+
+    public Workload getWorkload() {
+        return workload;
+    }
+
+    void setWorkload(Workload workload) {
+        this.workload = workload;
+    }
+
+    public RoutingPolicy getRoutingPolicy() {
+        return routingPolicy;
+    }
+
+    void setRoutingPolicy(RoutingPolicy routingPolicy) {
+        this.routingPolicy = routingPolicy;
+    }
+
+    /**
+     * Used by the NICs to break ties between equally good routes
+     */
+    public Supplier<Double> getRoutingRand() {
+        return routingRand;
+    }
+
+    void setRoutingRand(Supplier<Double> routingRand) {
+        this.routingRand = routingRand;
+    }
+
+    public LinkScheduling getLinkScheduling() {
+        return linkScheduling;
+    }
+
+    void setLinkScheduling(LinkScheduling linkScheduling) {
+        this.linkScheduling = linkScheduling;
+    }
+
+    /**
+     * @return the message size a normal link can put on the wire per tick. 0 means messages only take the latency to arrive.
+     */
+    public int getLinkRate() {
+        return linkRate;
+    }
+
+    void setLinkRate(int linkRate) {
+        this.linkRate = linkRate;
+    }
+
+    /**
+     * @return how many ticks a link waits to collect messages into one frame, 0 if links send messages one at a time
+     */
+    public int getFrameWindow() {
+        return frameWindow;
+    }
+
+    void setFrameWindow(int frameWindow) {
+        this.frameWindow = frameWindow;
+    }
+
+    /**
+     * @return true if messages for several servers go down a spanning tree, false if each server is sent its own copy
+     */
+    public boolean usesMulticast() {
+        return multicast;
+    }
+
+    void setMulticast(boolean multicast) {
+        this.multicast = multicast;
+    }
+
+    /**
+     * @return how many ticks finished transactions are kept for. The integrity checks allow this long for a finished transaction's locks to go.
+     */
+    public int getRetention() {
+        return retention;
+    }
+
+    void setRetention(int retention) {
+        this.retention = retention;
+    }
+
+    /**
+     * @return true if each server adjusts its limit on active transactions while running, starting from maxActiveTrans
+     */
+    public boolean usesAdaptiveAdmission() {
+        return adaptiveAdmission;
+    }
+
+    void setAdaptiveAdmission(boolean adaptiveAdmission) {
+        this.adaptiveAdmission = adaptiveAdmission;
+    }
+
+    /**
+     * @return true if transactions that can no longer finish before their deadline are aborted without waiting for it
+     */
+    public boolean usesEarlyAbort() {
+        return earlyAbort;
+    }
+
+    void setEarlyAbort(boolean earlyAbort) {
+        this.earlyAbort = earlyAbort;
+    }
+
+    /**
+     * @return true if write pages are locked in U mode and converted to X once they have been processed
+     */
+    public boolean usesUpdateLocks() {
+        return updateLocks;
+    }
+
+    void setUpdateLocks(boolean updateLocks) {
+        this.updateLocks = updateLocks;
+    }
+
+    /**
+     * @return the name of the RestartPolicy every TransactionManager uses
+     */
+    public String getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    void setRestartPolicy(String restartPolicy) {
+        this.restartPolicy = restartPolicy;
+    }
+
+    /**
+     * Used by the restart policies that wait a random time
+     */
+    public Supplier<Double> getRestartRand() {
+        return restartRand;
+    }
+
+    void setRestartRand(Supplier<Double> restartRand) {
+        this.restartRand = restartRand;
+    }
+}
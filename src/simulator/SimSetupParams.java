@@ -1,8 +1,13 @@
 package simulator;
 
+import exceptions.WTFException;
+import simulator.enums.LinkScheduling;
+import simulator.enums.RoutingPolicy;
+import simulator.enums.Topology;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.protocols.deadlockDetection.WFG.Graph;
 import simulator.protocols.deadlockDetection.WFG.WFGNode;
+import simulator.server.transactionManager.Workload;
 import stats.Statistics;
 import java.util.function.BiConsumer;
 import java.util.function.Consumer;
@@ -31,6 +36,19 @@ public class SimSetupParams {
     private int detectInterval;
     private int agentsHistoryLength;
     private double updateRate;
+    private boolean commonRandomNumbers;
+    private Workload.Cache workloadCache = new Workload.Cache();
+    private RoutingPolicy routingPolicy = RoutingPolicy.AllMinimal;
+    private Topology topology = Topology.HyperCube;
+    private LinkScheduling linkScheduling = LinkScheduling.FIFO;
+    private int linkRate;
+    private int frameWindow;
+    private boolean multicast;
+    private int retention = SimParams.DEFAULT_RETENTION;
+    private boolean adaptiveAdmission;
+    private boolean earlyAbort;
+    private boolean updateLocks;
+    private String restartPolicy = "FixedDelay";
 
     public SimSetupParams(long SEED, int numPages, int maxActiveTrans, int numServers, int arrivalRate, double updateRate, int detectInterval, String DDP, String DRP, String PP, Consumer<String> log, Statistics stats, Supplier<Long> sleepTime, Consumer<Integer> timeUpdater) {
         this.SEED = SEED;
@@ -128,4 +146,141 @@ public class SimSetupParams {
     public double getUpdateRate() {
         return updateRate;
     }
+
+    public boolean usesCommonRandomNumbers() {
+        return commonRandomNumbers;
+    }
+
+    /**
+     * When true, every simulation with the same SEED, servers, pages, arrival rate and update rate sees exactly the same transactions
+     */
+    public void setCommonRandomNumbers(boolean commonRandomNumbers) {
+        this.commonRandomNumbers = commonRandomNumbers;
+    }
+
+    public Workload.Cache getWorkloadCache() {
+        return workloadCache;
+    }
+
+    /**
+     * @param workloadCache where the workload comes from with common random numbers. Simulations given the same cache share their workloads,
+     *                      by default each simulation has its own.
+     */
+    public void setWorkloadCache(Workload.Cache workloadCache) {
+        this.workloadCache = workloadCache;
+    }
+
+    public RoutingPolicy getRoutingPolicy() {
+        return routingPolicy;
+    }
+
+    public void setRoutingPolicy(RoutingPolicy routingPolicy) {
+        this.routingPolicy = routingPolicy;
+    }
+
+    public Topology getTopology() {
+        return topology;
+    }
+
+    public void setTopology(Topology topology) {
+        this.topology = topology;
+    }
+
+    public LinkScheduling getLinkScheduling() {
+        return linkScheduling;
+    }
+
+    public void setLinkScheduling(LinkScheduling linkScheduling) {
+        this.linkScheduling = linkScheduling;
+    }
+
+    public int getLinkRate() {
+        return linkRate;
+    }
+
+    /**
+     * @param linkRate the message size a link can send per tick, 0 to ignore message sizes
+     */
+    public void setLinkRate(int linkRate) {
+        this.linkRate = linkRate;
+    }
+
+    public int getFrameWindow() {
+        return frameWindow;
+    }
+
+    /**
+     * @param frameWindow the number of ticks links collect messages for before sending them as one frame, 0 to send them one at a time
+     */
+    public void setFrameWindow(int frameWindow) {
+        this.frameWindow = frameWindow;
+    }
+
+    public boolean usesMulticast() {
+        return multicast;
+    }
+
+    /**
+     * @param multicast true to send messages for several servers down a spanning tree instead of one copy per server
+     */
+    public void setMulticast(boolean multicast) {
+        this.multicast = multicast;
+    }
+
+    public int getRetention() {
+        return retention;
+    }
+
+    /**
+     * @param retention the number of ticks finished transactions are kept for before they are only counted, at least SimParams.MIN_RETENTION
+     */
+    public void setRetention(int retention) {
+        if (retention < SimParams.MIN_RETENTION)
+            throw new WTFException("Retention has to be at least " + SimParams.MIN_RETENTION + " ticks: " + retention);
+        this.retention = retention;
+    }
+
+    public boolean usesAdaptiveAdmission() {
+        return adaptiveAdmission;
+    }
+
+    /**
+     * @param adaptiveAdmission true to let each server adjust its limit on active transactions, starting from maxActiveTrans
+     */
+    public void setAdaptiveAdmission(boolean adaptiveAdmission) {
+        this.adaptiveAdmission = adaptiveAdmission;
+    }
+
+    public boolean usesEarlyAbort() {
+        return earlyAbort;
+    }
+
+    /**
+     * @param earlyAbort true to abort transactions as soon as they are predicted to miss their deadline
+     */
+    public void setEarlyAbort(boolean earlyAbort) {
+        this.earlyAbort = earlyAbort;
+    }
+
+    public String getRestartPolicy() {
+        return restartPolicy;
+    }
+
+    /**
+     * @param restartPolicy FixedDelay, ExponentialBackoff, AfterConflicts or LeastSlackFirst, see RestartPolicy
+     */
+    public void setRestartPolicy(String restartPolicy) {
+        this.restartPolicy = restartPolicy;
+    }
+
+    public boolean usesUpdateLocks() {
+        return updateLocks;
+    }
+
+    /**
+     * @param updateLocks true to lock write pages in U mode and only convert them to X before writing
+     */
+    public void setUpdateLocks(boolean updateLocks) {
+        this.updateLocks = updateLocks;
+    }
 }
\ No newline at end of file
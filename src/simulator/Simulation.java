@@ -1,30 +1,39 @@
 package simulator;
 
+import exceptions.WTFException;
 import simulator.eventQueue.EventQueue;
 import simulator.protocols.priority.PriorityProtocol;
 import simulator.server.Server;
 import simulator.server.lockManager.Lock;
 import simulator.server.lockManager.Range;
+import simulator.server.lockManager.ReplicaIndex;
+import simulator.server.network.NetworkConnection;
+import simulator.server.network.topology.TopologyBuilder;
+import simulator.server.network.topology.SpanningTrees;
 import stats.Statistics;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.Map;
 import java.util.Random;
 
 public class Simulation {
 
-    private final Random rand, transGeneratorRand;
+    private final Random rand, transGeneratorRand, routingRand, restartRand;
     private final int numPages;
     private final EventQueue eventQueue;
     private final List<Server> servers = new ArrayList<>();
     private int nextTransID;
     private final SimParams simParams;
+    private final TopologyBuilder topology;
 
     public Simulation(SimSetupParams simSetupParams) {
         //Get parameters from setup param object
         this.rand = new Random(simSetupParams.getSEED());
         this.transGeneratorRand = new Random(simSetupParams.getSEED()/2);
+        //Each purpose mixes in its own constant so no two streams start the same, whatever the SEED.
+        //The workload for common random numbers uses SEED * 31 + serverID + 1.
+        this.routingRand = new Random(simSetupParams.getSEED() * 31 - 1);
+        this.restartRand = new Random(simSetupParams.getSEED() * 31 - 2);
         this.numPages = simSetupParams.getNumPages();
 
         eventQueue = new EventQueue(simSetupParams.sleepTime, simSetupParams.timeUpdater);
@@ -33,7 +42,7 @@ public class Simulation {
         //Create simParam object to give to each server, which is given to every component in the simulation
         simParams = new SimParams(transGeneratorRand::nextDouble, transGeneratorRand::nextDouble, eventQueue::addEvent, rand::nextDouble, eventQueue::getTime, this::getNextTransID,
                 this::getRandPageNum, simSetupParams.getMaxActiveTrans(), simSetupParams.getArrivalRate(), simSetupParams.getLog(),
-                simSetupParams.getStats(), eventQueue::incurOverhead, simSetupParams.getAgentsHistoryLength(), simSetupParams.getUpdateRate(), numPages);
+                simSetupParams.getStats(), eventQueue::incurOverhead, simSetupParams.getAgentsHistoryLength(), simSetupParams.getUpdateRate(), numPages, simSetupParams.getNumServers());
 
         simParams.DDP = simSetupParams.getDDP();
         simParams.DRP = simSetupParams.getDRP();
@@ -41,29 +50,47 @@ public class Simulation {
         simParams.setDeadlockListener(simSetupParams.getDeadlockListener());
         simParams.setDeadlockResolutionListener(simSetupParams.getDeadlockResolutionListener());
         simParams.setDeadlockDetectInterval(simSetupParams.getDetectInterval());
+        simParams.setRoutingPolicy(simSetupParams.getRoutingPolicy());
+        simParams.setRoutingRand(routingRand::nextDouble);
+        simParams.setLinkScheduling(simSetupParams.getLinkScheduling());
+        simParams.setLinkRate(simSetupParams.getLinkRate());
+        simParams.setFrameWindow(simSetupParams.getFrameWindow());
+        simParams.setMulticast(simSetupParams.usesMulticast());
+        simParams.setRetention(simSetupParams.getRetention());
+        simParams.setAdaptiveAdmission(simSetupParams.usesAdaptiveAdmission());
+        simParams.setEarlyAbort(simSetupParams.usesEarlyAbort());
+        simParams.setRestartPolicy(simSetupParams.getRestartPolicy());
+        simParams.setUpdateLocks(simSetupParams.usesUpdateLocks());
+        simParams.setRestartRand(restartRand::nextDouble);
+
+        //With common random numbers the transactions are pre-generated from their own streams and shared with the other simulations
+        if (simSetupParams.usesCommonRandomNumbers())
+            simParams.setWorkload(simSetupParams.getWorkloadCache().get(simSetupParams.getSEED(), simSetupParams.getNumServers(), simParams.getNumTransPerServer(),
+                    simSetupParams.getArrivalRate(), simSetupParams.getUpdateRate(), numPages));
 
 
         //Calculate which servers get what pages.
+        //Every page is on two servers, i and i + numServers/2. The pages are split as evenly as possible over those pairs.
 
-        int numPagesPerServer = simSetupParams.getNumPages() / (simSetupParams.getNumServers() / 2);
-        int minPage = 0;
-        int maxPage = numPagesPerServer;
+        int numServers = simSetupParams.getNumServers();
+        if (numServers < 2 || numServers % 2 != 0)
+            throw new WTFException("The number of servers has to be even and at least 2, it was " + numServers);
+
+        int numReplicaGroups = numServers / 2;
+        if (numPages < numReplicaGroups)
+            throw new WTFException("There has to be at least one page per pair of servers. numPages = " + numPages + ", numServers = " + numServers);
+
+        for (int i = 0; i < numServers; i++) {
+            int group = i % numReplicaGroups;
+            int minPage = (int) ((long) numPages * group / numReplicaGroups);
+            int maxPage = (int) ((long) numPages * (group + 1) / numReplicaGroups);
 
-        for (int i = 0; i < simSetupParams.getNumServers(); i++) {
             simSetupParams.getLog().accept("Creating server " + i + " with page range: " + minPage + " to " + maxPage);
             Server s = new Server(simParams, i, new Range(minPage, maxPage - 1));
             servers.add(s);
 
             simParams.serverToPageRange.put(i, new Range(minPage, maxPage - 1));
 
-            minPage += numPagesPerServer;
-            maxPage += numPagesPerServer;
-
-            if (minPage == simSetupParams.getNumPages()) {
-                minPage = 0;
-                maxPage = numPagesPerServer;
-            }
-
             // Set the deadlock detection protocol's 'Graph Listener'. It is used to display the WFGs in the GUI.
             final int serverID = i;
             s.getDDP().setGraphListener((wfGraph, time) -> {
@@ -72,6 +99,17 @@ public class Simulation {
 //                    eventQueue.stop();
             });
         }
+
+        simParams.setReplicaIndex(new ReplicaIndex(simParams.serverToPageRange));
+
+        //Connect the servers and build the routing tables
+        topology = TopologyBuilder.get(simSetupParams.getTopology(), simSetupParams.getSEED());
+        topology.setup(servers);
+
+        if (simParams.usesMulticast()) {
+            SpanningTrees spanningTrees = new SpanningTrees(servers);
+            servers.forEach(server -> server.getNIC().setSpanningTrees(spanningTrees));
+        }
     }
 
     private int getNextTransID() {
@@ -113,20 +151,11 @@ public class Simulation {
                 System.out.println("Server " + server.getID() + " has " + remainingTrans + " remaining transactions.");
 
             //Check to see if locks are still being held
-            Map<Integer, List<Lock>> heldLocks = server.getLM().getHeldLocks();
-            Range pageRange = simParams.serverToPageRange.get(server.getID());
-
-            int numberOfLocksHeld = 0;
-            for (int i = pageRange.getMin(); i < pageRange.getMax(); i++)
-                numberOfLocksHeld += heldLocks.get(i).size();
-
-
-            if (numberOfLocksHeld != 0) {
-                System.out.println("Server " + server.getID() + " has " + numberOfLocksHeld + " held locks!");
-                for (int i = pageRange.getMin(); i < pageRange.getMax(); i++)
-                    if(!heldLocks.get(i).isEmpty() )
-                        System.out.println("\tPage: " + i + "\t" + heldLocks.get(i));
+            List<Lock> heldLocks = server.getLM().getAllHeldLocks();
 
+            if (!heldLocks.isEmpty()) {
+                System.out.println("Server " + server.getID() + " has " + heldLocks.size() + " held locks!");
+                heldLocks.forEach(lock -> System.out.println("\tPage: " + lock.getPageNum() + "\t" + lock));
             }
         });
 
@@ -140,4 +169,21 @@ public class Simulation {
     public SimParams getSimParams() {
         return simParams;
     }
+
+    public TopologyBuilder getTopology() {
+        return topology;
+    }
+
+    public long getEventsProcessed() {
+        return eventQueue.getEventsProcessed();
+    }
+
+    /**
+     * @return every one way link in the network
+     */
+    public List<NetworkConnection> getLinks() {
+        List<NetworkConnection> links = new ArrayList<>();
+        servers.forEach(server -> links.addAll(server.getNIC().getConnections()));
+        return links;
+    }
 }
\ No newline at end of file
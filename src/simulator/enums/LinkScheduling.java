@@ -0,0 +1,66 @@
+package simulator.enums;
+
+import exceptions.WTFException;
+
+/**
+ * The order a NetworkConnection sends its queued messages in
+ */
+public enum LinkScheduling {
+    /**
+     * In the order they were queued
+     */
+    FIFO,
+    /**
+     * Earliest message deadline first
+     */
+    EDF,
+    /**
+     * By the priority class of the process the message is for, see getPriorityClass. FIFO within a class.
+     */
+    StrictPriority,
+    /**
+     * Self-clocked weighted fair queueing between processes, using the weights from getWeight
+     */
+    WeightedFair;
+
+    public static LinkScheduling fromString(String s) {
+        switch (s) {
+            case "FIFO": return FIFO;
+            case "EDF": return EDF;
+            case "StrictPriority": return StrictPriority;
+            case "WeightedFair": return WeightedFair;
+        }
+        throw new WTFException("Unknown link scheduling: " + s);
+    }
+
+    /**
+     * Lower goes first. Lock and commit traffic (for the lock managers and transaction managers) goes ahead of disk and resolution messages,
+     * and deadlock detection traffic (WFG shipping, probes) goes last.
+     */
+    public static int getPriorityClass(ServerProcess process) {
+        switch (process) {
+            case TransactionManager:
+            case LockManager:
+                return 0;
+            case DDP:
+                return 2;
+            default:
+                return 1;
+        }
+    }
+
+    /**
+     * The share of the link each process gets when they are all backed up
+     */
+    public static double getWeight(ServerProcess process) {
+        switch (process) {
+            case TransactionManager:
+            case LockManager:
+                return 4;
+            case DDP:
+                return 1;
+            default:
+                return 2;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+package simulator.enums;
+
+/**
+ * What a message is for. Each type lists the int fields it carries, in order.
+ * A type with a numFields of -1 has a variable number of fields.
+ */
+public enum MessageType {
+    /**
+     * Free text, only used by examples. The message's contents is the text.
+     */
+    Text(0),
+
+    /**
+     * To the TransactionManager. Object: the TransInfo of a new transaction
+     */
+    TransInfo(0),
+    /**
+     * To the TransactionManager. transID
+     */
+    AbortTransaction(1),
+    /**
+     * To the TransactionManager. transID, deadline, masterServerID, numReadPages, the read pages, then the write pages
+     */
+    CreateCohort(-1),
+    /**
+     * To the TransactionManager of a cohort. transID
+     */
+    Commit(1),
+    /**
+     * To the TransactionManager of a master. transID, cohortServerID
+     */
+    ReadyToCommit(2),
+    /**
+     * To the TransactionManager of a master. transID, cohortServerID, pageNum
+     */
+    WriteCompleted(3),
+    /**
+     * To the TransactionManager of a master. transID, cohortServerID
+     */
+    CohortCompleted(2),
+    /**
+     * To the TransactionManager of a master, the cohort can't finish before the deadline. transID, cohortServerID
+     */
+    CannotMeetDeadline(2),
+
+    /**
+     * To the LockManager, for all the pages a transaction wants locked there, or its locks there converted. transID, requestingServerID, LockMode ordinal, the pages
+     */
+    LockRequest(-1),
+    /**
+     * To the LockManager that asked for the locks. transID, grantingServerID, conversion (1 or 0), the pages
+     */
+    LockGranted(-1),
+    /**
+     * To the LockManager, for all the pages a transaction has locks on there. transID, the pages
+     */
+    LockRelease(-1),
+
+    /**
+     * To the Disk, the write set of a transaction on that server. transID, masterServerID, the pages
+     */
+    RemoteWrite(-1),
+
+    /**
+     * To the DDP. senderServerID. Object: the sender's local WFG
+     */
+    LocalWFG(1),
+    /**
+     * To the DDP. senderServerID, version. Object: the WFGDelta of the sender's local WFG
+     */
+    LocalWFGDelta(2),
+    /**
+     * To the DDP, asking it to send its whole local WFG again after a delta was missed. detectorServerID
+     */
+    ResendLocalWFG(1),
+    /**
+     * To the DDP. senderServerID. Object: the sender's S_List
+     */
+    SList(1),
+    /**
+     * To the DDP, asking it to send its local WFG to the mobile agents. senderServerID
+     */
+    RequestLocalWFG(1),
+    /**
+     * To the DDP. remainingHops. Object: the ProbeMessage
+     */
+    Probe(1),
+
+    /**
+     * To the DRP. transID, senderServerID. Object: the Deadlock the transaction was picked to resolve
+     */
+    AbortVictim(2),
+    /**
+     * To the DRP. transID, agentID, deadlockID, dropability
+     */
+    Dropability(4),
+    /**
+     * To the DRP. Object: the Deadlock to resolve
+     */
+    ResolveDeadlock(0);
+
+    private final int numFields;
+
+    MessageType(int numFields) {
+        this.numFields = numFields;
+    }
+
+    /**
+     * @return the number of int fields a message of this type has, -1 if it varies
+     */
+    public int getNumFields() {
+        return numFields;
+    }
+}
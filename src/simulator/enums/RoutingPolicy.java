@@ -0,0 +1,30 @@
+package simulator.enums;
+
+import exceptions.WTFException;
+
+/**
+ * How a NIC picks between the ports that are on a shortest path to the destination
+ */
+public enum RoutingPolicy {
+    /**
+     * A random port among all the minimal paths
+     */
+    AllMinimal,
+    /**
+     * Always the first port. On a HyperCube this is e-cube routing (lowest differing dimension first)
+     */
+    DimensionOrdered,
+    /**
+     * The port whose connection has the least queued plus on the wire message size. Ties are broken randomly.
+     */
+    LeastLoaded;
+
+    public static RoutingPolicy fromString(String s) {
+        switch (s) {
+            case "AllMinimal": return AllMinimal;
+            case "DimensionOrdered": return DimensionOrdered;
+            case "LeastLoaded": return LeastLoaded;
+        }
+        throw new WTFException("Unknown routing policy: " + s);
+    }
+}
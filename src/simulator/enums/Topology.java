@@ -1,13 +1,21 @@
 package simulator.enums;
 
+import exceptions.WTFException;
+
 public enum Topology {
-    HyperCube, FullyConnected;
+    HyperCube, FullyConnected, Ring, Torus2D, Torus3D, FatTree, Dragonfly, RandomRegular;
 
     public static Topology fromString(String s) {
         switch (s){
-            default:
             case "HyperCube": return HyperCube;
             case "FullyConnected": return FullyConnected;
+            case "Ring": return Ring;
+            case "Torus2D": return Torus2D;
+            case "Torus3D": return Torus3D;
+            case "FatTree": return FatTree;
+            case "Dragonfly": return Dragonfly;
+            case "RandomRegular": return RandomRegular;
         }
+        throw new WTFException("Unknown topology: " + s);
     }
 }
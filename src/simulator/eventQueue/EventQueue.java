@@ -40,6 +40,7 @@ public class EventQueue {
 
 
     private boolean sleptThisTick = false;
+    private long eventsProcessed;
 
     public void start() {
         System.out.println("** Simulation Starting **");
@@ -51,6 +52,7 @@ public class EventQueue {
 
             updateTime(e.getTime());
             e.getJob().run();
+            eventsProcessed++;
 
             if (!sleptThisTick) {
                 long sleeptime = sleepTime.get();
@@ -105,6 +107,13 @@ public class EventQueue {
         eventsAtThisServer.forEach(this::addEvent);
     }
 
+    /**
+     * @return the number of events that have been run (not counting aborted events)
+     */
+    public long getEventsProcessed() {
+        return eventsProcessed;
+    }
+
     public void stop() {
         stop = true;
     }
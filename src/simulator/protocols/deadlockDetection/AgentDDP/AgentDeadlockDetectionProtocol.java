@@ -11,10 +11,9 @@ import simulator.protocols.deadlockDetection.WFG.Graph;
 import simulator.protocols.deadlockDetection.WFG.GraphBuilder;
 import simulator.protocols.deadlockDetection.WFG.Task;
 import simulator.protocols.deadlockDetection.WFG.WFGNode;
+import simulator.protocols.deadlockDetection.WFGDelta;
 import simulator.protocols.deadlockDetection.WFG_DDP;
 import simulator.server.Server;
-import simulator.server.network.Message;
-import simulator.server.network.NetworkInterface;
 import ui.Log;
 
 /**
@@ -23,7 +22,7 @@ import ui.Log;
 public class AgentDeadlockDetectionProtocol extends WFG_DDP {
 
     protected final Log log;
-    protected List<Integer> allServers = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
+    protected final List<Integer> allServers;
 
     private List<List<WFGNode>> deadlocks = new LinkedList<>();
     private final List<Integer> receivedFromServers = new ArrayList<>();
@@ -36,6 +35,7 @@ public class AgentDeadlockDetectionProtocol extends WFG_DDP {
         simParams.usesWFG = true;
         simParams.agentBased = true;
         log = new Log(ServerProcess.DDP, server.getID(), simParams.timeProvider, simParams.log);
+        allServers = simParams.allServersList;
 
         localAgent = new LocalAgent(this, server);
         globalAgent = new GlobalAgent(this, server);
@@ -61,13 +61,14 @@ public class AgentDeadlockDetectionProtocol extends WFG_DDP {
     }
 
     /**
-     * This is called when a WFG is received
+     * This is called when the changes to a WFG are received
      */
-    public void updateWFGraph(Graph<WFGNode> graph, int server) {
+    @Override
+    public void updateWFGraph(WFGDelta delta, int server) {
         if (Log.isLoggingEnabled())
-            log.log("Updating graph (created at " + graph.getCreationTime() + ") with waits from server " + server);
+            log.log("Updating graph with " + delta + " from server " + server);
 
-        globalAgent.updateWFGraph(graph, server);
+        globalAgent.updateWFGraph(delta, server);
         wfgBuilder = new GraphBuilder<>();
     }
 
@@ -79,23 +80,8 @@ public class AgentDeadlockDetectionProtocol extends WFG_DDP {
         //clear the wfgBuilder now that we have the local WFG
         wfgBuilder = new GraphBuilder<>();
 
-        NetworkInterface NIC = server.getNIC();
-
-        //Calculate the amount of overhead to incur
-        int size = localWFG.getNumberOfWaits()/100;
-        if (size == 0)
-            size = 1;
-
-        //Send our graph to the detector nodes
-        for (int i = 0; i < simParams.globalDetectors; i++) {
-            if (i != serverID) {
-                Message message = new Message(i, ServerProcess.DDP, serverID + "", localWFG, simParams.getTime());
-                message.setSize(size);
-                message.setReoccuring(true);
-                NIC.sendMessage(message);
-                //simParams.messageOverhead += size;
-            }
-        }
+        //Send the changes to our graph to the detector nodes
+        WFGDelta delta = shipLocalWFG(localWFG);
 
         boolean isAGlobalDetector = serverID < simParams.globalDetectors;
         if (!isAGlobalDetector) {
@@ -104,7 +90,7 @@ public class AgentDeadlockDetectionProtocol extends WFG_DDP {
             return;
         }
 
-        updateWFGraph(localWFG, serverID);
+        updateWFGraph(delta, serverID);
     }
 
     private static void findDeadlocks(List<? extends WFGNode> trans, List<AgentDeadlockDetectionProtocol> addps, Graph<WFGNode> WFG) {
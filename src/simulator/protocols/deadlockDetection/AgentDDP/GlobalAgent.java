@@ -1,13 +1,13 @@
 package simulator.protocols.deadlockDetection.AgentDDP;
 
-import exceptions.WTFException;
 import simulator.SimParams;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.Deadlock;
+import simulator.protocols.deadlockDetection.GlobalWFG;
 import simulator.protocols.deadlockDetection.WFG.Graph;
-import simulator.protocols.deadlockDetection.WFG.GraphBuilder;
 import simulator.protocols.deadlockDetection.WFG.Task;
 import simulator.protocols.deadlockDetection.WFG.WFGNode;
+import simulator.protocols.deadlockDetection.WFGDelta;
 import simulator.server.Server;
 import simulator.server.transactionManager.TransInfo;
 import ui.Log;
@@ -27,11 +27,9 @@ public class GlobalAgent {
     private final Server server;
     private final int serverID;
     private final SimParams simParams;
-    private GraphBuilder<WFGNode> wfgBuilder;
     private final List<Integer> receivedFromServers;
 
     private List<List<WFGNode>> deadlocks = new LinkedList<>();
-    private List<Graph<WFGNode>> receivedWFGs;
     private Consumer<Event> eventQueue;
 
     private final List<Integer> agentsHistory;
@@ -43,8 +41,6 @@ public class GlobalAgent {
         this.server = server;
         this.serverID = server.getID();
         simParams = server.getSimParams();
-        receivedWFGs = addp.getReceivedWFGs();
-        wfgBuilder = addp.getWfgBuilder();
         receivedFromServers = addp.getReceivedFromServers();
         eventQueue = simParams.eventQueue;
 
@@ -53,40 +49,29 @@ public class GlobalAgent {
     }
 
     /**
-     * This is called when a WFG is received
+     * This is called when the changes to a WFG are received
      */
-    public void updateWFGraph(Graph<WFGNode> graph, int server) {
+    public void updateWFGraph(WFGDelta delta, int server) {
         if (Log.isLoggingEnabled())
             log.log("Updating graph with waits from server " + server);
 
-        if (receivedWFGs.contains(graph))
-            throw new WTFException(serverID + ": Have already received this WFG! " + graph);
-
-        receivedWFGs.add(graph);
-
-        graph.getTasks().forEach(wfgNodeTask -> {
-            WFGNode trans = wfgNodeTask.getId();
-            wfgBuilder.addTask(trans);
-            wfgNodeTask.getWaitsForTasks().forEach(waitingFor -> wfgBuilder.addTaskWaitsFor(trans, waitingFor.getId()));
-        });
+        if (!addp.applyWFGDelta(delta, server))
+            return;
 
         receivedFromServers.add(server);
 
         if (receivedFromServers.containsAll(simParams.allServersList)) {
+            GlobalWFG globalWFG = addp.getGlobalWFG();
             BiConsumer<Graph<WFGNode>, Integer> wfGraphConsumer = addp.getWfGraphConsumer();
             if (wfGraphConsumer != null) {
-                //System.out.println("Graph has " + wfgBuilder.size() + " nodes at time " + simParams.getTime());
-                Graph<WFGNode> copy = wfgBuilder.build();
+                Graph<WFGNode> copy = globalWFG.build();
                 copy.setGlobal(true);
                 wfGraphConsumer.accept(copy, simParams.getTime());
             }
 
-            searchGraph(wfgBuilder.build());
+            searchGraph(globalWFG.build());
             eventQueue.accept(new Event(simParams.getTime() + simParams.getDeadlockDetectInterval(), serverID, addp::startDetectionIteration));
 
-            //clear wfgBuilder so we can start fresh next round
-            wfgBuilder = new GraphBuilder<>();
-
             receivedFromServers.clear();
         }
     }
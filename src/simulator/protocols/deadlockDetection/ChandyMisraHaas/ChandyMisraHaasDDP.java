@@ -1,6 +1,7 @@
 package simulator.protocols.deadlockDetection.ChandyMisraHaas;
 
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.Deadlock;
@@ -45,11 +46,7 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
         if (Log.isLoggingEnabled())
             log.log("Detecting Deadlock");
 
-        Map<Integer, List<Lock>> heldLocks = server.getLM().getHeldLocks();
-        Map<Integer, List<Lock>> waitingLocks = server.getLM().getWaitingLocks();
-
-        List<Lock> allWaitingLocks = new LinkedList<>();
-        waitingLocks.values().forEach(allWaitingLocks::addAll);
+        List<Lock> allWaitingLocks = server.getLM().getAllWaitingLocks();
 
         //Pick percStart% of the waiting locks to start sending messages
         int numStart = (int) (allWaitingLocks.size() * percStart);
@@ -62,13 +59,13 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
         for (int i = 0; i < numStart; i++) {
             Lock l = allWaitingLocks.remove((int) (allWaitingLocks.size() * simParams.rand.get()));
 
-            List<Lock> heldLocksForThisPage = heldLocks.get(l.getPageNum());
+            List<Lock> heldLocksForThisPage = server.getLM().getBlockingLocks(l);
             heldLocksForThisPage.forEach(heldLock -> {
                 if (Log.isLoggingEnabled())
                     log.log(l.getTransID(), "On behalf of trans " + l.getTransID() + " sending probe to trans " + heldLock.getTransID());
 
                 server.getNIC().sendMessage(
-                        new Message(heldLock.getServerID(), ServerProcess.DDP, "20",
+                        new Message(heldLock.getServerID(), ServerProcess.DDP, MessageType.Probe, new int[]{20},
                                 new ProbeMessage(l.getTransID(), l.getTransID(), heldLock.getTransID()), simParams.getTime()));
             });
         }
@@ -99,13 +96,15 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
                 simParams.stats.addDeadlockFound();
                 simParams.stats.addDeadlockResolved();
 
-                server.getNIC().sendMessage(
-                        new Message(aborted.serverID, ServerProcess.TransactionManager, "A:" + aborted.transID, msg.getDeadline()));
+                //The initiator may have finished so long ago that it was evicted, then there is nothing to abort
+                if (aborted != null)
+                    server.getNIC().sendMessage(
+                            new Message(aborted.serverID, ServerProcess.TransactionManager, MessageType.AbortTransaction, msg.getDeadline(), aborted.transID));
 
             } else {//Else the probe must be sent to everything this transaction is waiting on
 
                 //Prevent the message from cycling through the system indefinitely
-                int remainingHops = Integer.parseInt(msg.getContents()) - 1;
+                int remainingHops = msg.getField(0) - 1;
                 if (remainingHops == 0)
                     return;
 
@@ -115,8 +114,6 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
                 //So now we get all the waiting locks this transaction has, to see if it is waiting on anything
                 List<Lock> waitingLocks = server.getLM().getAllWaitingLocksFor(probeMessage.getRecipient());
 
-                Map<Integer, List<Lock>> heldLocks = server.getLM().getHeldLocks();
-
                 //POTENTIAL ISSUE
                 // This transaction only looks at the waiting locks at its server, it may be waiting on remote locks on other servers
                 // To solve this we could report back to the transaction that its remote lock is waiting on a list of other locks.
@@ -124,7 +121,7 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
                 //For every waiting lock
                 waitingLocks.forEach(lock -> {
                     //Get all the held locks on that page (at this server)
-                    List<Lock> heldLocksList = heldLocks.get(lock.getPageNum());
+                    List<Lock> heldLocksList = server.getLM().getBlockingLocks(lock);
 
                     //For each of the held locks (held by other transactions)
                     heldLocksList.forEach(lock1 -> {
@@ -133,20 +130,24 @@ public class ChandyMisraHaasDDP extends DeadlockDetectionProtocol {
 
                         //Send the probe to those transactions
                         server.getNIC().sendMessage(
-                                new Message(lock1.getServerID(), ServerProcess.DDP, "" + remainingHops,
+                                new Message(lock1.getServerID(), ServerProcess.DDP, MessageType.Probe, new int[]{remainingHops},
                                         new ProbeMessage(probeMessage.getInitiator(), lock.getTransID(), lock1.getTransID()), simParams.getTime()));
                     });
                 });
 
                 //Now send probe to all cohorts of this transaction (because the master is always waiting on its cohorts to complete too)
-                Transaction recipient = server.getTM().getTransaction(probeMessage.getRecipient());
+                //A transaction that finished more than the retention period ago isn't waiting on its cohorts
+                Transaction recipient = server.getTM().findTransaction(probeMessage.getRecipient());
+                if (recipient == null)
+                    return;
+
                 recipient.getCohortServerIDS().forEach(serverID -> {
                     if (Log.isLoggingEnabled())
                         log.log(probeMessage.getInitiator(), "Sending probe to cohort on server " + serverID);
 
                     //Send the probe to all cohort transactions
                     server.getNIC().sendMessage(
-                            new Message(serverID, ServerProcess.DDP, "" + remainingHops,
+                            new Message(serverID, ServerProcess.DDP, MessageType.Probe, new int[]{remainingHops},
                                     new ProbeMessage(probeMessage.getInitiator(), probeMessage.getSender(), recipient.getID()), simParams.getTime()));
                 });
             }
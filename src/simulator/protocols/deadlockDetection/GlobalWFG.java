@@ -0,0 +1,111 @@
+package simulator.protocols.deadlockDetection;
+
+import simulator.protocols.deadlockDetection.WFG.Graph;
+import simulator.protocols.deadlockDetection.WFG.GraphBuilder;
+import simulator.protocols.deadlockDetection.WFG.WFGNode;
+import simulator.protocols.deadlockDetection.WFGDelta.Wait;
+
+import java.util.*;
+
+/**
+ * A global detector's copy of the global WFG, kept up to date by applying the WFGDeltas the servers send.
+ * Every node and wait is counted once for each server that reports it, so it stays in the graph until no server reports it.
+ */
+public class GlobalWFG {
+
+    /**
+     * server ID -> the version of its local WFG that has been applied, -1 if none
+     */
+    private final int[] versions;
+    private final List<Set<Integer>> nodesFrom = new ArrayList<>();
+    private final List<Set<Wait>> waitsFrom = new ArrayList<>();
+
+    private final Map<Integer, WFGNode> nodes = new HashMap<>();
+    private final Map<Integer, Integer> nodeCounts = new HashMap<>();
+    private final Map<Wait, Integer> waitCounts = new HashMap<>();
+
+    public GlobalWFG(int numberOfServers) {
+        versions = new int[numberOfServers];
+        Arrays.fill(versions, -1);
+        for (int i = 0; i < numberOfServers; i++) {
+            nodesFrom.add(new HashSet<>());
+            waitsFrom.add(new HashSet<>());
+        }
+    }
+
+    /**
+     * Applies a delta from a server. Deltas that are older than what has been applied are ignored.
+     *
+     * @return false if the delta can't be applied because a version in between is missing
+     */
+    public boolean apply(int server, WFGDelta delta) {
+        if (delta.getVersion() <= versions[server])
+            return true;
+
+        if (delta.isFull()) {
+            Set<Integer> oldNodes = nodesFrom.get(server);
+            oldNodes.forEach(this::removeNode);
+            oldNodes.clear();
+
+            Set<Wait> oldWaits = waitsFrom.get(server);
+            oldWaits.forEach(this::removeWait);
+            oldWaits.clear();
+        }
+        else if (delta.getVersion() != versions[server] + 1)
+            return false;
+
+        Set<Integer> serverNodes = nodesFrom.get(server);
+        for (WFGNode node : delta.getAddedNodes())
+            if (serverNodes.add(node.getID()))
+                addNode(node);
+        for (WFGNode node : delta.getRemovedNodes())
+            if (serverNodes.remove(node.getID()))
+                removeNode(node.getID());
+
+        Set<Wait> serverWaits = waitsFrom.get(server);
+        for (Wait wait : delta.getAddedWaits())
+            if (serverWaits.add(wait))
+                waitCounts.merge(wait, 1, Integer::sum);
+        for (Wait wait : delta.getRemovedWaits())
+            if (serverWaits.remove(wait))
+                removeWait(wait);
+
+        versions[server] = delta.getVersion();
+        return true;
+    }
+
+    private void addNode(WFGNode node) {
+        if (nodeCounts.merge(node.getID(), 1, Integer::sum) == 1)
+            nodes.put(node.getID(), node);
+    }
+
+    private void removeNode(int id) {
+        if (nodeCounts.merge(id, -1, Integer::sum) == 0) {
+            nodeCounts.remove(id);
+            nodes.remove(id);
+        }
+    }
+
+    private void removeWait(Wait wait) {
+        if (waitCounts.merge(wait, -1, Integer::sum) == 0)
+            waitCounts.remove(wait);
+    }
+
+    /**
+     * @return a snapshot of the global WFG
+     */
+    public Graph<WFGNode> build() {
+        GraphBuilder<WFGNode> builder = new GraphBuilder<>();
+        nodes.values().forEach(builder::addTask);
+        waitCounts.keySet().forEach(wait -> builder.addTaskWaitsFor(nodes.get(wait.getFrom().getID()), nodes.get(wait.getTo().getID())));
+        return builder.build();
+    }
+
+    public int getVersion(int server) {
+        return versions[server];
+    }
+
+    public int size() {
+        return nodes.size();
+    }
+}
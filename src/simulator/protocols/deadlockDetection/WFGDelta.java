@@ -0,0 +1,152 @@
+package simulator.protocols.deadlockDetection;
+
+import simulator.protocols.deadlockDetection.WFG.Graph;
+import simulator.protocols.deadlockDetection.WFG.Task;
+import simulator.protocols.deadlockDetection.WFG.WFGNode;
+
+import java.util.*;
+
+/**
+ * What changed in a server's local WFG since the version before it. A full delta has the whole local WFG instead,
+ * and replaces whatever the detector had from that server.
+ */
+public class WFGDelta {
+
+    private final int version;
+    private final boolean full;
+    private final List<WFGNode> addedNodes;
+    private final List<WFGNode> removedNodes;
+    private final List<Wait> addedWaits;
+    private final List<Wait> removedWaits;
+
+    private WFGDelta(int version, boolean full, List<WFGNode> addedNodes, List<WFGNode> removedNodes, List<Wait> addedWaits, List<Wait> removedWaits) {
+        this.version = version;
+        this.full = full;
+        this.addedNodes = addedNodes;
+        this.removedNodes = removedNodes;
+        this.addedWaits = addedWaits;
+        this.removedWaits = removedWaits;
+    }
+
+    /**
+     * @return the whole local WFG as a delta
+     */
+    public static WFGDelta full(int version, Map<Integer, WFGNode> nodes, Set<Wait> waits) {
+        return new WFGDelta(version, true, new ArrayList<>(nodes.values()), Collections.emptyList(), new ArrayList<>(waits), Collections.emptyList());
+    }
+
+    /**
+     * @return the changes that turn the old local WFG into the new one
+     */
+    public static WFGDelta between(int version, Map<Integer, WFGNode> oldNodes, Set<Wait> oldWaits, Map<Integer, WFGNode> newNodes, Set<Wait> newWaits) {
+        List<WFGNode> addedNodes = new ArrayList<>();
+        List<WFGNode> removedNodes = new ArrayList<>();
+        List<Wait> addedWaits = new ArrayList<>();
+        List<Wait> removedWaits = new ArrayList<>();
+
+        newNodes.forEach((id, node) -> {
+            if (!oldNodes.containsKey(id))
+                addedNodes.add(node);
+        });
+        oldNodes.forEach((id, node) -> {
+            if (!newNodes.containsKey(id))
+                removedNodes.add(node);
+        });
+        for (Wait wait : newWaits)
+            if (!oldWaits.contains(wait))
+                addedWaits.add(wait);
+        for (Wait wait : oldWaits)
+            if (!newWaits.contains(wait))
+                removedWaits.add(wait);
+
+        return new WFGDelta(version, false, addedNodes, removedNodes, addedWaits, removedWaits);
+    }
+
+    /**
+     * Fills in the nodes (by ID) and the waits of the graph
+     */
+    public static void getNodesAndWaits(Graph<WFGNode> graph, Map<Integer, WFGNode> nodes, Set<Wait> waits) {
+        for (Task<WFGNode> task : graph.getTasks()) {
+            WFGNode node = task.getId();
+            nodes.put(node.getID(), node);
+            for (Task<WFGNode> waitsFor : task.getWaitsForTasks())
+                waits.add(new Wait(node, waitsFor.getId()));
+        }
+    }
+
+    public int getVersion() {
+        return version;
+    }
+
+    public boolean isFull() {
+        return full;
+    }
+
+    public List<WFGNode> getAddedNodes() {
+        return addedNodes;
+    }
+
+    public List<WFGNode> getRemovedNodes() {
+        return removedNodes;
+    }
+
+    public List<Wait> getAddedWaits() {
+        return addedWaits;
+    }
+
+    public List<Wait> getRemovedWaits() {
+        return removedWaits;
+    }
+
+    /**
+     * @return the message size, in the same units as a whole WFG (100 nodes and waits per unit)
+     */
+    public int getSize() {
+        int size = (addedNodes.size() + removedNodes.size() + addedWaits.size() + removedWaits.size()) / 100;
+        return size == 0 ? 1 : size;
+    }
+
+    @Override
+    public String toString() {
+        return "WFGDelta{" +
+                "version=" + version +
+                ", full=" + full +
+                ", nodes=+" + addedNodes.size() + "/-" + removedNodes.size() +
+                ", waits=+" + addedWaits.size() + "/-" + removedWaits.size() +
+                '}';
+    }
+
+    /**
+     * One transaction waiting for another. Two waits are equal if they are between the same transaction IDs.
+     */
+    public static class Wait {
+        private final WFGNode from;
+        private final WFGNode to;
+
+        public Wait(WFGNode from, WFGNode to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        public WFGNode getFrom() {
+            return from;
+        }
+
+        public WFGNode getTo() {
+            return to;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) return true;
+            if (!(o instanceof Wait)) return false;
+            Wait wait = (Wait) o;
+            return from.getID() == wait.from.getID() && to.getID() == wait.to.getID();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * from.getID() + to.getID();
+        }
+    }
+}
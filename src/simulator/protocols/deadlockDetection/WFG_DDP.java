@@ -2,6 +2,7 @@ package simulator.protocols.deadlockDetection;
 
 import exceptions.WTFException;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.WFG.Graph;
@@ -11,7 +12,7 @@ import simulator.protocols.deadlockDetection.WFG.WFGNode;
 import simulator.server.Server;
 import simulator.server.lockManager.Lock;
 import simulator.server.network.Message;
-import simulator.server.network.NetworkInterface;
+import simulator.server.network.MulticastMessage;
 import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
 import ui.Log;
@@ -32,6 +33,23 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
     protected GraphBuilder<WFGNode> wfgBuilder = new GraphBuilder<>();
     protected GraphBuilder<WFGNode> globalWfgBuilder = new GraphBuilder<>();
 
+    /**
+     * The global WFG built from the deltas the servers send
+     */
+    protected final GlobalWFG globalWFG;
+
+    /**
+     * The local WFG as of the last time it was shipped, and its version
+     */
+    private Map<Integer, WFGNode> shippedNodes = new HashMap<>();
+    private Set<WFGDelta.Wait> shippedWaits = new HashSet<>();
+    private int wfgVersion = -1;
+
+    /**
+     * detector server ID -> the version of the local WFG it was last sent, -1 if it needs the whole WFG
+     */
+    private final int[] versionSentTo;
+
     private final List<Integer> receivedFromServers = new ArrayList<>();
     private BiConsumer<Graph<WFGNode>, Integer> wfGraphConsumer;
 
@@ -41,6 +59,10 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
         log = new Log(ServerProcess.DDP, serverID, simParams.timeProvider, simParams.log);
 
         this.deadlockListener = deadlockListener;
+
+        globalWFG = new GlobalWFG(simParams.numberOfServers);
+        versionSentTo = new int[simParams.numberOfServers];
+        Arrays.fill(versionSentTo, -1);
     }
 
     @Override
@@ -51,17 +73,25 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
     }
 
     /**
-     * Only receives one type of message, that is the wait for graph from another node.
-     * The message's contents is just the serverID of the other server.
-     * The message's object is the Wait for Graph
+     * Receives the changes to another node's wait for graph, a request to resend ours, or a whole wait for graph.
+     * The message's first field is the serverID of the other server.
      */
     public void receiveMessage(Message msg) {
         if (Log.isLoggingEnabled())
             log.log("Received message - " + msg.toString());
 
-        int remoteServerID = Integer.parseInt(msg.getContents());
-
-        updateWFGraph((Graph<WFGNode>) msg.getObject(), remoteServerID);
+        int remoteServerID = msg.getField(0);
+
+        switch (msg.getType()) {
+            case LocalWFGDelta:
+                updateWFGraph((WFGDelta) msg.getObject(), remoteServerID);
+                break;
+            case ResendLocalWFG:
+                resendLocalWFG(remoteServerID);
+                break;
+            default:
+                updateWFGraph((Graph<WFGNode>) msg.getObject(), remoteServerID);
+        }
     }
 
     /**
@@ -96,25 +126,92 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
         //clear the wfgBuilder now that we have the local WFG
         wfgBuilder = new GraphBuilder<>();
 
-        NetworkInterface NIC = server.getNIC();
-
-        //Calculate the amount of overhead to incur
-        int size = localWFG.getNumberOfWaits()/100;
-        if (size == 0)
-            size = 1;
+        updateWFGraph(shipLocalWFG(localWFG), serverID);
+    }
 
-        //Send our graph to the detector nodes
+    /**
+     * Sends the changes to the local WFG since the last time it was shipped to the detector nodes.
+     * Detectors that missed the last version get the whole local WFG instead.
+     *
+     * @return the changes, for this server's own detector
+     */
+    protected WFGDelta shipLocalWFG(Graph<WFGNode> localWFG) {
+        Map<Integer, WFGNode> nodes = new HashMap<>();
+        Set<WFGDelta.Wait> waits = new HashSet<>();
+        WFGDelta.getNodesAndWaits(localWFG, nodes, waits);
+
+        int version = ++wfgVersion;
+        WFGDelta delta = WFGDelta.between(version, shippedNodes, shippedWaits, nodes, waits);
+        shippedNodes = nodes;
+        shippedWaits = waits;
+
+        int[] upToDate = new int[simParams.globalDetectors];
+        int[] behind = new int[simParams.globalDetectors];
+        int numUpToDate = 0, numBehind = 0;
         for (int i = 0; i < simParams.globalDetectors; i++) {
-            if (i != serverID) {
-                Message message = new Message(i, ServerProcess.DDP, serverID + "", localWFG, simParams.getTime());
-                message.setSize(size);
-                message.setReoccuring(true);
-                NIC.sendMessage(message);
-                //simParams.messageOverhead += size;
-            }
+            if (i == serverID)
+                continue;
+            if (versionSentTo[i] == version - 1)
+                upToDate[numUpToDate++] = i;
+            else
+                behind[numBehind++] = i;
+            versionSentTo[i] = version;
+        }
+
+        if (numUpToDate > 0)
+            sendLocalWFG(Arrays.copyOf(upToDate, numUpToDate), delta);
+        if (numBehind > 0)
+            sendLocalWFG(Arrays.copyOf(behind, numBehind), WFGDelta.full(version, nodes, waits));
+
+        if (Log.isLoggingEnabled())
+            log.log("Shipped local WFG " + delta);
+
+        return delta;
+    }
+
+    private void sendLocalWFG(int[] detectors, WFGDelta delta) {
+        MulticastMessage message = new MulticastMessage(serverID, detectors, ServerProcess.DDP, MessageType.LocalWFGDelta, new int[]{serverID, delta.getVersion()}, delta, simParams.getTime());
+        message.setSize(delta.getSize());
+        message.setReoccuring(true);
+        server.getNIC().multicast(message);
+    }
+
+    /**
+     * A detector missed a delta, so send it the whole local WFG as it was last shipped
+     */
+    private void resendLocalWFG(int detector) {
+        if (Log.isLoggingEnabled())
+            log.log("Resending local WFG to " + detector);
+
+        versionSentTo[detector] = wfgVersion;
+        sendLocalWFG(new int[]{detector}, WFGDelta.full(wfgVersion, shippedNodes, shippedWaits));
+    }
+
+    /**
+     * Applies a delta to the global WFG. If a version was missed the server is asked for its whole local WFG.
+     *
+     * @return true if the delta was applied, false if it was old or could not be applied yet
+     */
+    public boolean applyWFGDelta(WFGDelta delta, int server) {
+        if (delta.getVersion() <= globalWFG.getVersion(server))
+            return false;
+
+        if (globalWFG.apply(server, delta))
+            return true;
+
+        if (server == serverID) {
+            //This server only just became a detector, its own WFG is right here
+            globalWFG.apply(server, WFGDelta.full(delta.getVersion(), shippedNodes, shippedWaits));
+            return true;
         }
 
-        updateWFGraph(localWFG, serverID);
+        if (Log.isLoggingEnabled())
+            log.log("Missed a delta from server " + server + ", have version " + globalWFG.getVersion(server) + " got " + delta.getVersion());
+
+        Message message = new Message(server, ServerProcess.DDP, MessageType.ResendLocalWFG, simParams.getTime(), serverID);
+        message.setReoccuring(true);
+        this.server.getNIC().sendMessage(message);
+        return false;
     }
 
     /**
@@ -126,48 +223,32 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
         if (Log.isLoggingEnabled())
             log.log("Creating local graph");
 
-        //For integrity checking
-        Map<Integer, Transaction> allTrans = simParams.getAllTransactionsMap();
+        //For integrity checking. A finished transaction's locks can take a while to go, up to the retention period.
         Map<Integer, Transaction> activeTrans = simParams.getActiveTransactionsMap();
+        int finishedBefore = simParams.getTime() - simParams.getRetention();
+
+        for (Lock waitingLock : server.getLM().getAllWaitingLocks()) {
+            //Assert check to make sure all the locks belong to active transactions
+            if (!activeTrans.containsKey(waitingLock.getTransID())) {
+                //Sometimes a transaction that has just finished, so don't throw an error if it just finished
+                if (simParams.completedBefore(waitingLock.getTransID(), finishedBefore))
+                    throw new WTFException(serverID + ": This waiting lock " + waitingLock + " doesn't belong to an active transaction!");
+            }
 
-        Map<Integer, List<Lock>> heldLocksMap = server.getLM().getHeldLocks();
-        Map<Integer, List<Lock>> waitingLocksMap = server.getLM().getWaitingLocks();
-
-        for (Integer pageNum : waitingLocksMap.keySet()) {
-            List<Lock> waitingLocks = waitingLocksMap.get(pageNum);
+            List<Lock> heldLocks = server.getLM().getBlockingLocks(waitingLock);
 
-            for (Lock waitingLock : waitingLocks) {
+            heldLocks.forEach(heldLock -> {
                 //Assert check to make sure all the locks belong to active transactions
-                if (!activeTrans.containsKey(waitingLock.getTransID())) {
-                    Transaction t = allTrans.get(waitingLock.getTransID());
+                if (!activeTrans.containsKey(heldLock.getTransID())) {
                     //Sometimes a transaction that has just finished, so don't throw an error if it just finished
-                    if (t.isCompleted() && t.getCompletedTime() < simParams.getTime() - 1000)
-                        throw new WTFException(serverID + ": This waiting lock " + waitingLock + " doesn't belong to an active transaction!");
-                    else {
-                        //System.out.println(simParams.getTime() + " - Adding lock of " + t + " that has recently completed at " + t.getCompletedTime());
-                    }
+                    if (simParams.completedBefore(heldLock.getTransID(), finishedBefore))
+                        throw new WTFException(serverID + ": This held lock " + heldLock + " doesn't belong to an active transaction!");
                 }
 
-                List<Lock> heldLocks = heldLocksMap.get(waitingLock.getPageNum());
-
-                heldLocks.forEach(heldLock -> {
-                    //Assert check to make sure all the locks belong to active transactions
-                    if (!activeTrans.containsKey(heldLock.getTransID())) {
+                log.log(waitingLock.getTransID(), "Transaction " + waitingLock.getTransID() + " is waiting on " + heldLock.getTransID() + " for page " + heldLock.getPageNum());
 
-                        Transaction t = allTrans.get(heldLock.getTransID());
-                        //Sometimes a transaction that has just finished, so don't throw an error if it just finished
-                        if (t.isCompleted() && t.getCompletedTime() < simParams.getTime() - 1000)
-                            throw new WTFException(serverID + ": This held lock " + heldLock + " doesn't belong to an active transaction!");
-                        else {
-                            //System.out.println(simParams.getTime() + " - Adding lock of " + t + " that has recently completed at " + t.getCompletedTime());
-                        }
-                    }
-
-                    log.log(waitingLock.getTransID(), "Transaction " + waitingLock.getTransID() + " is waiting on " + heldLock.getTransID() + " for page " + heldLock.getPageNum());
-
-                    addWait(waitingLock, heldLock);
-                });
-            }
+                addWait(waitingLock, heldLock);
+            });
         }
         Graph<WFGNode> graph = wfgBuilder.build();
         graph.setCreationTime(simParams.getTime());
@@ -176,13 +257,23 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
     }
 
     public void addWait(Lock waitingLock, Lock heldLock) {
-        addWait(getTransInfo(waitingLock.getTransID()), getTransInfo(heldLock.getTransID()));
+        TransInfo from = getTransInfo(waitingLock.getTransID());
+        TransInfo to = getTransInfo(heldLock.getTransID());
+
+        //A lock left behind by a transaction that finished more than the retention period ago can't be part of a deadlock
+        if (from != null && to != null)
+            addWait(from, to);
     }
 
     public void removeAllWaitsOn(Lock heldLock) {
-        wfgBuilder.removeTask(getTransInfo(heldLock.getTransID()));
+        TransInfo ti = getTransInfo(heldLock.getTransID());
+        if (ti != null)
+            wfgBuilder.removeTask(ti);
     }
 
+    /**
+     * @return the transaction's info, null if it finished more than the retention period ago
+     */
     private TransInfo getTransInfo(int transID) {
         return simParams.transInfos.get(transID);
     }
@@ -241,6 +332,33 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
         }
     }
 
+    /**
+     * This is called when the changes to a WFG are received.
+     * Once every server's changes are in, the global WFG is searched. The global WFG is kept for the next round.
+     */
+    public void updateWFGraph(WFGDelta delta, int server) {
+        if (Log.isLoggingEnabled())
+            log.log("Updating graph with " + delta + " from server " + server);
+
+        if (!applyWFGDelta(delta, server))
+            return;
+
+        receivedFromServers.add(server);
+        if (receivedFromServers.containsAll(simParams.allServersList)) {
+            if (wfGraphConsumer != null) {
+                Graph<WFGNode> copy = globalWFG.build();
+                copy.setGlobal(true);
+                wfGraphConsumer.accept(copy, simParams.getTime());
+            }
+
+            searchGraph(globalWFG.build());
+
+            //After searching for deadlocks, post event to search again
+            eventQueue.accept(new Event(simParams.getTime() + simParams.getDeadlockDetectInterval(), serverID, this::startDetectionIteration));
+            receivedFromServers.clear();
+        }
+    }
+
     public void calculateAndIncurOverhead(Graph<WFGNode> WFG) {
         //calc overhead
         int overhead = 1;
@@ -289,6 +407,10 @@ public class WFG_DDP extends DeadlockDetectionProtocol {
         return receivedWFGs;
     }
 
+    public GlobalWFG getGlobalWFG() {
+        return globalWFG;
+    }
+
     public void setWfgBuilder(GraphBuilder<WFGNode> wfgBuilder) {
         this.wfgBuilder = wfgBuilder;
     }
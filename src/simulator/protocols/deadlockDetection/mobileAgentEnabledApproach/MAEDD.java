@@ -1,6 +1,7 @@
 package simulator.protocols.deadlockDetection.mobileAgentEnabledApproach;
 
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.Deadlock;
@@ -10,6 +11,7 @@ import simulator.protocols.deadlockDetection.WFG.WFGNode;
 import simulator.protocols.deadlockDetection.WFG_DDP;
 import simulator.server.Server;
 import simulator.server.network.Message;
+import simulator.server.network.MulticastMessage;
 import simulator.server.network.NetworkInterface;
 import ui.Log;
 
@@ -19,9 +21,12 @@ import java.util.function.Consumer;
 public class MAEDD extends WFG_DDP {
 
     protected final Log log;
-    protected List<Integer> allServers = Arrays.asList(0, 1, 2, 3, 4, 5, 6, 7);
+    protected final List<Integer> allServers;
 
-    protected List<Integer> mobileAgentServers = Arrays.asList(0, 7);
+    /**
+     * The mobile agents start on the first and last servers
+     */
+    protected final List<Integer> mobileAgentServers;
 
     private final StaticAgent staticAgent;
     private final MobileAgent mobileAgent;
@@ -36,6 +41,8 @@ public class MAEDD extends WFG_DDP {
         simParams.usesWFG = true;
         simParams.agentBased = true;
         log = new Log(ServerProcess.DDP, server.getID(), simParams.timeProvider, simParams.log);
+        allServers = simParams.allServersList;
+        mobileAgentServers = Arrays.asList(0, simParams.numberOfServers - 1);
 
         staticAgent = new StaticAgent(this, server);
         mobileAgent = new MobileAgent(this, server);
@@ -102,14 +109,11 @@ public class MAEDD extends WFG_DDP {
             log.log("sending S_list from static agent " + serverID + " | list: " + s_List);
 
         //Send our S_List to the mobile agents
-        for (int i = 0; i < mobileAgentServers.size(); i++) {
-            int globalDetector = mobileAgentServers.get(i);
-
-            Message message = new Message(globalDetector, ServerProcess.DDP, serverID + "", s_List, simParams.getTime());
-            message.setSize(size);
-            message.setReoccuring(true);
-            NIC.sendMessage(message);
-        }
+        int[] mobiles = mobileAgentServers.stream().mapToInt(Integer::intValue).toArray();
+        MulticastMessage message = new MulticastMessage(serverID, mobiles, ServerProcess.DDP, MessageType.SList, new int[]{serverID}, s_List, simParams.getTime());
+        message.setSize(size);
+        message.setReoccuring(true);
+        NIC.multicast(message);
 
         if (Log.isLoggingEnabled())
             log.log("Posting event for the next iteration");
@@ -120,7 +124,7 @@ public class MAEDD extends WFG_DDP {
 
     /**
      * Only receives one type of message, that is the wait for graph from another node.
-     * The message's contents is just the serverID of the other server.
+     * The message's only field is the serverID of the other server.
      * The message's object is the Wait for Graph
      */
     @Override
@@ -128,14 +132,18 @@ public class MAEDD extends WFG_DDP {
         if (Log.isLoggingEnabled())
             log.log("Received message - " + msg.toString());
 
-        int remoteServerID = Integer.parseInt(msg.getContents());
-
-        if ("Send LocalWFG to Mobiles".equals(msg.getObject()))
-            sendLocalWFGToGlobals();
-        else if (msg.getObject() instanceof HashSet)
-            mobileAgent.update_S_List((HashSet) msg.getObject(), remoteServerID);
-        else
-            updateWFGraph((Graph<WFGNode>) msg.getObject(), remoteServerID);
+        int remoteServerID = msg.getField(0);
+
+        switch (msg.getType()) {
+            case RequestLocalWFG:
+                sendLocalWFGToGlobals();
+                break;
+            case SList:
+                mobileAgent.update_S_List((HashSet) msg.getObject(), remoteServerID);
+                break;
+            default:
+                updateWFGraph((Graph<WFGNode>) msg.getObject(), remoteServerID);
+        }
     }
 
     @Override
@@ -157,16 +165,11 @@ public class MAEDD extends WFG_DDP {
             log.log("Sending local WFG = " + localWFG.toString() + " From Server " + serverID);
 
         //Send our graph to the detector nodes
-        for (int i = 0; i < mobileAgentServers.size(); i++) {
-            int globalDetector = mobileAgentServers.get(i);
-
-            //if (globalDetector != serverID) {
-            Message message = new Message(globalDetector, ServerProcess.DDP, serverID + "", localWFG, simParams.getTime());
-            message.setSize(size);
-            message.setReoccuring(true);
-            NIC.sendMessage(message);
-            //}
-        }
+        int[] mobiles = mobileAgentServers.stream().mapToInt(Integer::intValue).toArray();
+        MulticastMessage message = new MulticastMessage(serverID, mobiles, ServerProcess.DDP, MessageType.LocalWFG, new int[]{serverID}, localWFG, simParams.getTime());
+        message.setSize(size);
+        message.setReoccuring(true);
+        NIC.multicast(message);
 
         //if (!mobileAgentServers.contains(serverID)) {
 //            log.log("Posting event for the next iteration");
@@ -2,6 +2,7 @@ package simulator.protocols.deadlockDetection.mobileAgentEnabledApproach;
 
 import exceptions.WTFException;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.protocols.deadlockDetection.Deadlock;
@@ -243,7 +244,7 @@ public class MobileAgent {
             NetworkInterface NIC = server.getNIC();
 
             for (Integer s : S_List)
-                NIC.sendMessage(new Message(s, ServerProcess.DDP, serverID + "", "Send LocalWFG to Mobiles", simParams.getTime()));
+                NIC.sendMessage(new Message(s, ServerProcess.DDP, MessageType.RequestLocalWFG, simParams.getTime(), serverID));
 
 
             //eventQueue.accept(new Event(simParams.getTime() + 1, serverID, maedd::sendLocalWFGToGlobals, true));
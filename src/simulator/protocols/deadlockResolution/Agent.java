@@ -1,6 +1,7 @@
 package simulator.protocols.deadlockResolution;
 
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.server.Server;
@@ -81,7 +82,7 @@ public class Agent {
                 if (Log.isLoggingEnabled())
                     log.log(agentID, deadlockID + ": Sending dropability (" + dropability + ") to other agent " + ti.transID);
 
-                server.getNIC().sendMessage(new Message(ti.serverID, ServerProcess.DRP, "RD:" + ti.transID + ":" + agentID + ":" + deadlockID + ":" + dropability, ti.deadline));
+                server.getNIC().sendMessage(new Message(ti.serverID, ServerProcess.DRP, MessageType.Dropability, ti.deadline, ti.transID, agentID, deadlockID, (int) dropability));
             }
         });
     }
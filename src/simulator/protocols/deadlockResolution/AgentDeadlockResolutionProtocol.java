@@ -3,6 +3,7 @@ package simulator.protocols.deadlockResolution;
 import exceptions.WTFException;
 import javafx.util.Pair;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.server.Server;
@@ -34,24 +35,22 @@ public class AgentDeadlockResolutionProtocol implements DeadlockResolutionProtoc
     }
 
     /**
-     * RD: Receive dropability
-     * R: Resolve deadlock
+     * Dropability: transID, agentID, deadlockID, dropability
+     * ResolveDeadlock: the object is the deadlock
      *
      * @param message
      */
     @Override
     public void receiveMessage(Message message) {
-        String[] msg = message.getContents().split(":");
-
-        switch (msg[0]) {
-            case "RD": {
+        switch (message.getType()) {
+            case Dropability: {
                 if (Log.isLoggingEnabled())
-                    log.log(Integer.parseInt(msg[1]), "Receive message: " + message);
+                    log.log(message.getField(0), "Receive message: " + message);
 
-                receiveDropability(Integer.parseInt(msg[1]), Integer.parseInt(msg[2]), Integer.parseInt(msg[3]), Integer.parseInt(msg[4]));
+                receiveDropability(message.getField(0), message.getField(1), message.getField(2), message.getField(3));
                 break;
             }
-            case "R": {
+            case ResolveDeadlock: {
                 if (Log.isLoggingEnabled())
                     log.log("Resolve- " + message.getObject());
 
@@ -59,7 +58,7 @@ public class AgentDeadlockResolutionProtocol implements DeadlockResolutionProtoc
                 break;
             }
             default:
-                throw new WTFException("Badly formatted message! : " + message.getContents());
+                throw new WTFException("Badly formatted message! : " + message);
         }
     }
 
@@ -101,7 +100,7 @@ public class AgentDeadlockResolutionProtocol implements DeadlockResolutionProtoc
                 }
 
             } else if (!fromMsg && !sentToAlready.contains(serverID)) {
-                server.getNIC().sendMessage(new Message(serverID, ServerProcess.DRP, "R:", deadlock, ti.deadline));
+                server.getNIC().sendMessage(new Message(serverID, ServerProcess.DRP, MessageType.ResolveDeadlock, Message.NO_FIELDS, deadlock, ti.deadline));
                 sentToAlready.add(serverID);
             }
         }
@@ -1,6 +1,7 @@
 package simulator.protocols.deadlockResolution;
 
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.server.Server;
@@ -31,7 +32,7 @@ public class FirstDeadlockResolution implements DeadlockResolutionProtocol {
         TransInfo firstTrans = transactionsInDeadlock.get(0);
 
         if (simParams.agentBased) {
-            server.getNIC().sendMessage(new Message(firstTrans.serverID, ServerProcess.DRP, "A:" + firstTrans.getID() + ":" + server.getID(), deadlock, firstTrans.getDeadline()));
+            server.getNIC().sendMessage(new Message(firstTrans.serverID, ServerProcess.DRP, MessageType.AbortVictim, new int[]{firstTrans.getID(), server.getID()}, deadlock, firstTrans.getDeadline()));
             return;
         }
 
@@ -50,13 +51,11 @@ public class FirstDeadlockResolution implements DeadlockResolutionProtocol {
 
     @Override
     public void receiveMessage(Message msg) {
-        String message = msg.getContents();
-        String[] components = message.split(":");
-        int transID = Integer.parseInt(components[1]);
+        int transID = msg.getField(0);
         Deadlock deadlock = (Deadlock) msg.getObject();
 
         if (Log.isLoggingEnabled())
-            log.log("FirstDeadlockResolution - Server " + components[2] + " told to abort transaction " + transID);
+            log.log("FirstDeadlockResolution - Server " + msg.getField(1) + " told to abort transaction " + transID);
 
         deadlock.setResolutionTime(simParams.getTime());
         simParams.getDeadlockResolutionListener().accept(deadlock, transID);
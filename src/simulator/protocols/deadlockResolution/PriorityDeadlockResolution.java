@@ -1,6 +1,7 @@
 package simulator.protocols.deadlockResolution;
 
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.protocols.deadlockDetection.Deadlock;
 import simulator.server.Server;
@@ -49,7 +50,7 @@ public class PriorityDeadlockResolution implements DeadlockResolutionProtocol {
 
             TransInfo LowestTInfo = lowestPrioritytrans.get((int) (simParams.rand.get() * lowestPrioritytrans.size()));
 
-            server.getNIC().sendMessage(new Message(LowestTInfo.serverID, ServerProcess.DRP, "A:" + LowestTInfo.getID() + ":" + server.getID(), deadlock, LowestTInfo.getDeadline()));
+            server.getNIC().sendMessage(new Message(LowestTInfo.serverID, ServerProcess.DRP, MessageType.AbortVictim, new int[]{LowestTInfo.getID(), server.getID()}, deadlock, LowestTInfo.getDeadline()));
             return;
         }
 
@@ -76,13 +77,11 @@ public class PriorityDeadlockResolution implements DeadlockResolutionProtocol {
 
     @Override
     public void receiveMessage(Message msg) {
-        String message = msg.getContents();
-        String[] components = message.split(":");
-        int transID = Integer.parseInt(components[1]);
+        int transID = msg.getField(0);
         Deadlock deadlock = (Deadlock) msg.getObject();
 
         if (Log.isLoggingEnabled())
-            log.log("PriorityDeadlockResolution - Server " + components[2] + " told to abort transaction " + transID);
+            log.log("PriorityDeadlockResolution - Server " + msg.getField(1) + " told to abort transaction " + transID);
 
         deadlock.setResolutionTime(simParams.getTime());
         simParams.getDeadlockResolutionListener().accept(deadlock, transID);
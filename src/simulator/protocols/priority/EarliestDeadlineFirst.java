@@ -6,6 +6,7 @@ import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 public class EarliestDeadlineFirst implements PriorityProtocol {
@@ -45,4 +46,9 @@ public class EarliestDeadlineFirst implements PriorityProtocol {
             }
         return lowest;
     }
+
+    @Override
+    public Comparator<Transaction> getTransComparator() {
+        return Comparator.comparingInt(Transaction::getDeadline);
+    }
 }
@@ -6,6 +6,7 @@ import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
 
 import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 
 public class LeastSlackFirst implements PriorityProtocol {
@@ -39,4 +40,9 @@ public class LeastSlackFirst implements PriorityProtocol {
         Lock lowest = null;
         return lowest;
     }
+
+    @Override
+    public Comparator<Transaction> getTransComparator() {
+        return Comparator.comparingInt(Transaction::getSlackTime);
+    }
 }
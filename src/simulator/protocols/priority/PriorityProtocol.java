@@ -5,6 +5,7 @@ import simulator.server.lockManager.Lock;
 import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
 
+import java.util.Comparator;
 import java.util.List;
 
 public interface PriorityProtocol {
@@ -13,6 +14,11 @@ public interface PriorityProtocol {
     int getTransPriority(List<TransInfo> transactions, int transID);
     Lock getHighestPriorityLock(List<Lock> locks);
 
+    /**
+     * @return the order getHighestPriorityTrans picks transactions in, highest priority first. Null if there is no fixed order.
+     */
+    Comparator<Transaction> getTransComparator();
+
     static PriorityProtocol getPp(String pp) {
         switch(pp){
             case "FirstComeFirstServe": return new FirstComeFirstServe();
@@ -3,6 +3,7 @@ package simulator.protocols.priority;
 import simulator.server.lockManager.Lock;
 import simulator.server.transactionManager.TransInfo;
 import simulator.server.transactionManager.Transaction;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Random;
 
@@ -25,4 +26,12 @@ public class RandomPriority implements PriorityProtocol {
         Random rnd = new Random();
         return locks.get(rnd.nextInt(locks.size()));
     }
+
+    /**
+     * Picks at random, so there is no order
+     */
+    @Override
+    public Comparator<Transaction> getTransComparator() {
+        return null;
+    }
 }
@@ -0,0 +1,100 @@
+package simulator.protocols.restart;
+
+import simulator.SimParams;
+import simulator.eventQueue.Event;
+import simulator.server.transactionManager.Transaction;
+
+import java.util.*;
+
+/**
+ * Restarts a transaction once the transactions that held the locks it was waiting for (on this server) have released them,
+ * so it doesn't run into them again. It waits at least MIN_RESTART_DELAY and at most MAX_WAIT ticks.
+ */
+public class AfterConflictsRestart implements RestartPolicy {
+
+    /**
+     * Restart anyway after this many ticks, the conflicting transactions may be waiting on something else for a long time
+     */
+    private static final int MAX_WAIT = 500;
+
+    private static class PendingRestart {
+        private final Runnable restart;
+        private final int earliestTime;
+        private final Set<Integer> waitingFor;
+        private Event timeout;
+        private boolean restarted;
+
+        private PendingRestart(Runnable restart, int earliestTime, Set<Integer> waitingFor) {
+            this.restart = restart;
+            this.earliestTime = earliestTime;
+            this.waitingFor = waitingFor;
+        }
+    }
+
+    private final SimParams simParams;
+    private final int serverID;
+
+    /**
+     * transID -> the restarts waiting for it to release its locks
+     */
+    private final Map<Integer, List<PendingRestart>> waitingOn = new HashMap<>();
+
+    public AfterConflictsRestart(SimParams simParams, int serverID) {
+        this.simParams = simParams;
+        this.serverID = serverID;
+    }
+
+    @Override
+    public void scheduleRestart(Transaction t, Set<Integer> conflictingTransIDs, Runnable restart) {
+        int time = simParams.getTime();
+        PendingRestart pending = new PendingRestart(restart, time + MIN_RESTART_DELAY, new HashSet<>(conflictingTransIDs));
+
+        if (pending.waitingFor.isEmpty()) {
+            simParams.eventQueue.accept(new Event(pending.earliestTime, serverID, () -> restart(pending)));
+            return;
+        }
+
+        pending.waitingFor.forEach(transID -> waitingOn.computeIfAbsent(transID, k -> new ArrayList<>()).add(pending));
+        pending.timeout = new Event(time + MAX_WAIT, serverID, () -> restart(pending));
+        simParams.eventQueue.accept(pending.timeout);
+    }
+
+    @Override
+    public void locksReleased(int transID) {
+        List<PendingRestart> pendingRestarts = waitingOn.remove(transID);
+        if (pendingRestarts == null)
+            return;
+
+        for (PendingRestart pending : pendingRestarts) {
+            pending.waitingFor.remove(transID);
+
+            if (pending.waitingFor.isEmpty() && !pending.restarted) {
+                pending.timeout.abort();
+                simParams.eventQueue.accept(new Event(Math.max(pending.earliestTime, simParams.getTime() + 1), serverID, () -> restart(pending)));
+            }
+        }
+    }
+
+    private void restart(PendingRestart pending) {
+        if (pending.restarted)
+            return;
+        pending.restarted = true;
+
+        //Stop waiting for the rest after a timeout
+        pending.waitingFor.forEach(transID -> {
+            List<PendingRestart> pendingRestarts = waitingOn.get(transID);
+            if (pendingRestarts != null) {
+                pendingRestarts.remove(pending);
+                if (pendingRestarts.isEmpty())
+                    waitingOn.remove(transID);
+            }
+        });
+
+        pending.restart.run();
+    }
+
+    @Override
+    public boolean waitsForConflicts() {
+        return true;
+    }
+}
@@ -0,0 +1,38 @@
+package simulator.protocols.restart;
+
+import simulator.SimParams;
+import simulator.eventQueue.Event;
+import simulator.server.transactionManager.Transaction;
+
+import java.util.Set;
+import java.util.function.Supplier;
+
+/**
+ * Waits a random time before restarting, up to twice as long every time the same transaction is aborted.
+ * Transactions that were aborted together don't restart together, so they don't collide again straight away.
+ */
+public class ExponentialBackoffRestart implements RestartPolicy {
+
+    /**
+     * The window the delay is picked from stops doubling after this many aborts
+     */
+    private static final int MAX_DOUBLINGS = 6;
+
+    private final SimParams simParams;
+    private final int serverID;
+    private final Supplier<Double> rand;
+
+    public ExponentialBackoffRestart(SimParams simParams, int serverID) {
+        this.simParams = simParams;
+        this.serverID = serverID;
+        rand = simParams.getRestartRand();
+    }
+
+    @Override
+    public void scheduleRestart(Transaction t, Set<Integer> conflictingTransIDs, Runnable restart) {
+        int window = MIN_RESTART_DELAY << Math.min(t.getAbortCount() - 1, MAX_DOUBLINGS);
+        int delay = MIN_RESTART_DELAY + (int) (rand.get() * window);
+
+        simParams.eventQueue.accept(new Event(simParams.getTime() + delay, serverID, restart));
+    }
+}
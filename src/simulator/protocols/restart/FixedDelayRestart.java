@@ -0,0 +1,26 @@
+package simulator.protocols.restart;
+
+import simulator.SimParams;
+import simulator.eventQueue.Event;
+import simulator.server.transactionManager.Transaction;
+
+import java.util.Set;
+
+/**
+ * Restarts every transaction MIN_RESTART_DELAY ticks after it was aborted
+ */
+public class FixedDelayRestart implements RestartPolicy {
+
+    private final SimParams simParams;
+    private final int serverID;
+
+    public FixedDelayRestart(SimParams simParams, int serverID) {
+        this.simParams = simParams;
+        this.serverID = serverID;
+    }
+
+    @Override
+    public void scheduleRestart(Transaction t, Set<Integer> conflictingTransIDs, Runnable restart) {
+        simParams.eventQueue.accept(new Event(simParams.getTime() + MIN_RESTART_DELAY, serverID, restart));
+    }
+}
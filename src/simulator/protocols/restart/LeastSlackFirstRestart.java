@@ -0,0 +1,94 @@
+package simulator.protocols.restart;
+
+import simulator.SimParams;
+import simulator.eventQueue.Event;
+import simulator.server.transactionManager.Transaction;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Restarts the aborted transactions one at a time, RESTART_SPACING ticks apart, the one with the least slack left first.
+ * Transactions that were aborted together are spread out instead of restarting together, and the ones closest to
+ * missing their deadline go first.
+ */
+public class LeastSlackFirstRestart implements RestartPolicy {
+
+    /**
+     * Ticks between two restarts
+     */
+    private static final int RESTART_SPACING = 10;
+
+    private static class PendingRestart {
+        private final Transaction t;
+        private final Runnable restart;
+        private final int earliestTime;
+
+        private PendingRestart(Transaction t, Runnable restart, int earliestTime) {
+            this.t = t;
+            this.restart = restart;
+            this.earliestTime = earliestTime;
+        }
+
+        /**
+         * The slack left at any time is this minus the time
+         */
+        private int getSlack() {
+            return t.getDeadline() - t.getExecutionTime();
+        }
+    }
+
+    private final SimParams simParams;
+    private final int serverID;
+
+    private final List<PendingRestart> pending = new ArrayList<>();
+    private boolean releaseScheduled;
+    private int nextReleaseTime;
+
+    public LeastSlackFirstRestart(SimParams simParams, int serverID) {
+        this.simParams = simParams;
+        this.serverID = serverID;
+    }
+
+    @Override
+    public void scheduleRestart(Transaction t, Set<Integer> conflictingTransIDs, Runnable restart) {
+        PendingRestart pendingRestart = new PendingRestart(t, restart, simParams.getTime() + MIN_RESTART_DELAY);
+        pending.add(pendingRestart);
+
+        if (!releaseScheduled)
+            scheduleRelease(Math.max(pendingRestart.earliestTime, nextReleaseTime));
+    }
+
+    private void scheduleRelease(int time) {
+        releaseScheduled = true;
+        simParams.eventQueue.accept(new Event(time, serverID, this::release));
+    }
+
+    /**
+     * Restarts the transaction with the least slack that has waited at least MIN_RESTART_DELAY
+     */
+    private void release() {
+        int time = simParams.getTime();
+        releaseScheduled = false;
+
+        PendingRestart next = null;
+        int earliestTime = Integer.MAX_VALUE;
+        for (PendingRestart pendingRestart : pending) {
+            if (pendingRestart.earliestTime <= time) {
+                if (next == null || pendingRestart.getSlack() < next.getSlack())
+                    next = pendingRestart;
+            } else
+                earliestTime = Math.min(earliestTime, pendingRestart.earliestTime);
+        }
+
+        if (next != null) {
+            pending.remove(next);
+            nextReleaseTime = time + RESTART_SPACING;
+            next.restart.run();
+        }
+
+        if (!pending.isEmpty() && !releaseScheduled)
+            scheduleRelease(next != null ? nextReleaseTime : earliestTime);
+    }
+}
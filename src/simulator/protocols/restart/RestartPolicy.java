@@ -0,0 +1,49 @@
+package simulator.protocols.restart;
+
+import exceptions.WTFException;
+import simulator.SimParams;
+import simulator.server.transactionManager.Transaction;
+
+import java.util.Set;
+
+/**
+ * Decides when a master transaction that was aborted is started again. Each TransactionManager has its own.
+ */
+public interface RestartPolicy {
+
+    /**
+     * A transaction is never restarted sooner than this, so its cohorts can be aborted before they receive a message to start again
+     */
+    int MIN_RESTART_DELAY = 30;
+
+    /**
+     * Arranges for restart to be run when the aborted transaction should start again
+     *
+     * @param conflictingTransIDs the transactions holding locks it was waiting for on this server, empty unless waitsForConflicts()
+     */
+    void scheduleRestart(Transaction t, Set<Integer> conflictingTransIDs, Runnable restart);
+
+    /**
+     * Called when a transaction has released its locks on this server, because it completed or was aborted.
+     * It may be running on another server, its locks here are then released by a message.
+     */
+    default void locksReleased(int transID) {
+    }
+
+    /**
+     * @return true if scheduleRestart needs the conflicting transactions
+     */
+    default boolean waitsForConflicts() {
+        return false;
+    }
+
+    static RestartPolicy getRestartPolicy(String restartPolicy, SimParams simParams, int serverID) {
+        switch (restartPolicy) {
+            case "FixedDelay": return new FixedDelayRestart(simParams, serverID);
+            case "ExponentialBackoff": return new ExponentialBackoffRestart(simParams, serverID);
+            case "AfterConflicts": return new AfterConflictsRestart(simParams, serverID);
+            case "LeastSlackFirst": return new LeastSlackFirstRestart(simParams, serverID);
+        }
+        throw new WTFException("Restart Policy not registered! add them in the RestartPolicy class!");
+    }
+}
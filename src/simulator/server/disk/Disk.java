@@ -9,6 +9,7 @@ import simulator.server.network.Message;
 import ui.Log;
 
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.PriorityQueue;
 import java.util.Queue;
@@ -26,6 +27,11 @@ public class Disk {
     private DiskJob activeDiskJob;
     private Queue<DiskJob> diskJobs = new PriorityQueue<>();
 
+    /**
+     * Moving average of how long jobs wait in the queue before they start
+     */
+    private double averageQueueingDelay;
+
     public Disk(int serverID, SimParams simParams, Range pageRange) {
         this.serverID = serverID;
         this.simParams = simParams;
@@ -42,15 +48,17 @@ public class Disk {
     private void tryToStartJob() {
         if (activeDiskJob == null && !diskJobs.isEmpty()) {
             activeDiskJob = diskJobs.remove();
+            averageQueueingDelay += SimParams.QUEUEING_DELAY_WEIGHT * (simParams.getTime() - activeDiskJob.getQueuedTime() - averageQueueingDelay);
 
             if (Log.isLoggingEnabled())
                 log.log(activeDiskJob.getTransID(), "Starting disk job " + activeDiskJob);
 
-            Event e = new Event(simParams.getTime() + SimParams.diskReadWriteTime, serverID, () -> {
+            Event e = new Event(simParams.getTime() + activeDiskJob.getServiceTime(), serverID, () -> {
                 if (Log.isLoggingEnabled())
                     log.log(activeDiskJob.getTransID(), "Disk job completed " + activeDiskJob);
 
-                activeDiskJob.getCompletedListener().accept(activeDiskJob.getPageNum());
+                for (int pageNum : activeDiskJob.getPageNums())
+                    activeDiskJob.getCompletedListener().accept(pageNum);
 
                 eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::tryToStartJob));
 
@@ -62,39 +70,39 @@ public class Disk {
     }
 
     public void addJob(DiskJob dj) {
-        if (!pageRange.contains(dj.getPageNum()))
-            throw new WTFException("Disk job page outside of range!");
+        for (int pageNum : dj.getPageNums())
+            if (!pageRange.contains(pageNum))
+                throw new WTFException("Disk job page outside of range!");
 
         if (Log.isLoggingEnabled())
             log.log(dj.getTransID(), "Queueing disk job " + dj);
 
+        dj.setQueuedTime(simParams.getTime());
         diskJobs.add(dj);
         eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::tryToStartJob));
     }
 
 
     /**
-     * W:<TransNum>:<PageNum>:<DeadLine>
-     * <p>
-     * ex
-     * W:5:42:2:E Write page 42 exclusive lock page 5 for trans 42 (which is on server 2)
+     * Only receives RemoteWrite messages: transID, masterServerID, the pages.
+     * All the pages of the write set are written by one batched job.
      */
     public void receiveMessage(Message message) {
-        String msg = message.getContents();
-        String[] msgParts = msg.split(":");
-
-        int transID = Integer.parseInt(msgParts[1]);
-        int pageNum = Integer.parseInt(msgParts[2]);
-        int serverID = Integer.parseInt(msgParts[3]);
+        int transID = message.getField(0);
         int deadline = message.getDeadline();
+        int[] pageNums = Arrays.copyOfRange(message.getFields(), 2, message.getNumFields());
 
-        addJob(new DiskJob(transID, deadline, pageNum, pNum -> {
+        addJob(new DiskJob(transID, deadline, pageNums, pNum -> {
             if (Log.isLoggingEnabled())
-                log.log(transID, "Write job completed: page " + pageNum);
+                log.log(transID, "Write job completed: page " + pNum);
             //Do nothing when the write job finishes.
         }));
     }
 
+    public double getAverageQueueingDelay() {
+        return averageQueueingDelay;
+    }
+
     public void abort(int transNum) {
         if (Log.isLoggingEnabled())
             log.log(transNum, "Clearing disk jobs");
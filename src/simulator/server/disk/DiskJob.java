@@ -1,13 +1,17 @@
 package simulator.server.disk;
 
+import simulator.SimParams;
 import simulator.eventQueue.Event;
 
+import java.util.Arrays;
 import java.util.function.Consumer;
 
 public class DiskJob implements Comparable<DiskJob> {
     private final int transID, deadline, pageNum;
+    private final int[] pageNums;
 
     private Event activeEvent;
+    private int queuedTime;
     private Consumer<Integer> completedListener;
 
     public DiskJob(int transID, int deadline, int pageNum, Consumer<Integer> completedListener) {
@@ -15,6 +19,18 @@ public class DiskJob implements Comparable<DiskJob> {
         this.deadline = deadline;
         this.pageNum = pageNum;
         this.completedListener = completedListener;
+        pageNums = new int[]{pageNum};
+    }
+
+    /**
+     * A batched job that writes all the pages one after the other. The completed listener is called for each page when the job finishes.
+     */
+    public DiskJob(int transID, int deadline, int[] pageNums, Consumer<Integer> completedListener) {
+        this.transID = transID;
+        this.deadline = deadline;
+        this.pageNum = pageNums[0];
+        this.pageNums = pageNums;
+        this.completedListener = completedListener;
     }
 
     public int getTransID() {
@@ -29,6 +45,17 @@ public class DiskJob implements Comparable<DiskJob> {
         return pageNum;
     }
 
+    public int[] getPageNums() {
+        return pageNums;
+    }
+
+    /**
+     * @return how long the disk takes to do the job, one seek and then the pages sequentially
+     */
+    public int getServiceTime() {
+        return SimParams.diskReadWriteTime + (pageNums.length - 1) * SimParams.sequentialWriteTime;
+    }
+
     public Event getActiveEvent() {
         return activeEvent;
     }
@@ -37,6 +64,17 @@ public class DiskJob implements Comparable<DiskJob> {
         this.activeEvent = activeEvent;
     }
 
+    /**
+     * @return the time the job was added to the queue
+     */
+    public int getQueuedTime() {
+        return queuedTime;
+    }
+
+    public void setQueuedTime(int queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+
     @Override
     public int compareTo(DiskJob o) {
         if (deadline < o.deadline)
@@ -60,7 +98,7 @@ public class DiskJob implements Comparable<DiskJob> {
         return "DiskJob{" +
                 "transID=" + transID +
                 ", deadline=" + deadline +
-                ", pageNum=" + pageNum +
+                ", pageNums=" + Arrays.toString(pageNums) +
                 ", activeEvent=" + activeEvent +
                 '}';
     }
@@ -8,14 +8,34 @@ public class Lock implements WFGNode {
     private final int ID = nextID++;
     private final int pageNum;
     private final int transID;
-    private final boolean exclusive;
+    private LockMode mode;
     private final int serverID;
     private final int deadline;
 
-    public Lock(int pageNum, int transID, boolean exclusive, int deadline, int serverID) {
+    /**
+     * The locks before and after this one in the queue it is in on its page (see LockTable)
+     */
+    Lock prev, next;
+
+    /**
+     * The transaction's locks before and after this one (see LockTable)
+     */
+    Lock prevOfTrans, nextOfTrans;
+
+    /**
+     * In the held locks of its page, otherwise waiting
+     */
+    boolean held;
+
+    /**
+     * Waiting to convert a lock the transaction holds on the page to this one's mode
+     */
+    boolean conversion;
+
+    public Lock(int pageNum, int transID, LockMode mode, int deadline, int serverID) {
         this.pageNum = pageNum;
         this.transID = transID;
-        this.exclusive = exclusive;
+        this.mode = mode;
         this.deadline = deadline;
         this.serverID = serverID;
     }
@@ -25,7 +45,22 @@ public class Lock implements WFGNode {
     }
 
     public boolean isExclusive() {
-        return exclusive;
+        return mode == LockMode.X;
+    }
+
+    public LockMode getMode() {
+        return mode;
+    }
+
+    /**
+     * Converts a held lock
+     */
+    void setMode(LockMode mode) {
+        this.mode = mode;
+    }
+
+    public boolean isConversion() {
+        return conversion;
     }
 
     public int getPageNum() {
@@ -40,6 +75,24 @@ public class Lock implements WFGNode {
         return deadline;
     }
 
+    /**
+     * @return the next lock in the same queue on this page, null if this is the last one
+     */
+    public Lock getNext() {
+        return next;
+    }
+
+    /**
+     * @return the next lock of the same transaction on this server, null if this is the last one
+     */
+    public Lock getNextOfTrans() {
+        return nextOfTrans;
+    }
+
+    public boolean isHeld() {
+        return held;
+    }
+
     @Override
     public int getID() {
         return ID;
@@ -50,7 +103,8 @@ public class Lock implements WFGNode {
         return "Lock{" +
                 "pageNum=" + pageNum +
                 ", transID=" + transID +
-                ", exclusive=" + exclusive +
+                ", mode=" + mode +
+                (conversion ? ", conversion" : "") +
                 '}';
     }
 }
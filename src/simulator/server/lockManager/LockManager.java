@@ -2,6 +2,7 @@ package simulator.server.lockManager;
 
 import exceptions.WTFException;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.server.Server;
@@ -13,19 +14,19 @@ import java.util.*;
 
 public class LockManager {
 
-    private static final String E = "E";
     private final Log log;
     private final Server server;
     private final SimParams simParams;
     private final int serverID;
     private final Range pageRange;
-    private Map<Integer, List<Lock>> heldLocks = new HashMap<>(); //Page to list of locks
-    private Map<Integer, List<Lock>> waitingLocks = new HashMap<>(); //Page to list of locks
+    private final LockTable lockTable;
 
-    /*
-        These hashmaps are in the form
-        {Page Number -> {List of Locks}
-    */
+    /**
+     * Pages that had a lock released since the last grant pass, offset by the first page of the range.
+     * Only these pages can have waiting locks that are now obtainable.
+     */
+    private BitSet changedPages = new BitSet();
+    private boolean grantPassScheduled;
 
     public LockManager(Server server, SimParams simParams, Range pageRange) {
         this.server = server;
@@ -33,140 +34,220 @@ public class LockManager {
         serverID = server.getID();
         this.pageRange = pageRange;
         log = new Log(ServerProcess.LockManager, server.getID(), simParams.timeProvider, simParams.log);
+        lockTable = new LockTable(pageRange);
+    }
 
-        for (int i = pageRange.getMin(); i <= pageRange.getMax(); i++) {
-            heldLocks.put(i, new LinkedList<>());
-            waitingLocks.put(i, new LinkedList<>());
+    /**
+     * Marks the page as having had a lock released and schedules a grant pass if there isn't one already
+     */
+    private void lockReleased(int pageNum) {
+        changedPages.set(pageNum - pageRange.getMin());
+
+        if (!grantPassScheduled) {
+            grantPassScheduled = true;
+            simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::checkForObtainableLocks));
         }
     }
 
     /**
-     * Called when a lock is released, checks to see if any waiting locks can move into the held locks list
+     * Called after locks are released, checks to see if any waiting locks on the pages that changed can move into the held locks list
      */
     private void checkForObtainableLocks() {
-        waitingLocks.keySet().forEach(pageNum -> {
-            List<Lock> wLocks = waitingLocks.get(pageNum);
-            if (wLocks.isEmpty())
-                return;
+        //Locks released while granting are left for the next pass
+        BitSet pages = changedPages;
+        changedPages = new BitSet();
+        grantPassScheduled = false;
 
-            List<Lock> locks = heldLocks.get(pageNum);
-            if (locks == null) //Safety check
-                throw new WTFException("Invalid Page Number! Waiting lock for page " + pageNum + " on server " + server.getID());
+        for (int i = pages.nextSetBit(0); i >= 0; i = pages.nextSetBit(i + 1)) {
+            int pageNum = pageRange.getMin() + i;
+
+            Lock firstWaiting = lockTable.getFirstWaiting(pageNum);
+            if (firstWaiting == null)
+                continue;
 
             //If there are no held locks on this page then we consider adding locks. This prevents starvation by continuously adding shared locks in-front of an exclusive one.
-            if (locks.isEmpty()) {
+            //Conversions are at the front, they only wait for the locks of other transactions.
+            if (lockTable.getFirstHeld(pageNum) == null || firstWaiting.isConversion()) {
 
                 List<Lock> acquiredLocks = new ArrayList<>();
 
-                boolean sharedLockAdded = false;
-                for (Lock lock : wLocks) {
+                for (Lock lock = firstWaiting; lock != null; ) {
+                    Lock next = lock.getNext();
 
-                    if (lock.isExclusive()) {
-                        if (!sharedLockAdded) {
-                            locks.add(lock);
-                            acquiredLocks.add(lock);
-                            break;
-                        }
-                    } else {
-                        sharedLockAdded = true;
-                        locks.add(lock);
+                    if (isGrantable(lock.getMode(), lock.getTransID(), pageNum, lock.isConversion())) {
+                        if (lock.isConversion()) {
+                            lockTable.remove(lock);
+                            getHeldLock(lock.getTransID(), pageNum).setMode(lock.getMode());
+                        } else
+                            lockTable.grant(lock);
                         acquiredLocks.add(lock);
                     }
+                    lock = next;
                 }
 
-                wLocks.removeAll(acquiredLocks);
-
                 acquiredLocks.forEach(lock -> {
-                    if (lock.getServerID() == server.getID())
-                        server.getTM().lockAcquired(lock.getTransID(), lock.getPageNum());
-                    else {
-                        server.getNIC().sendMessage(new Message(lock.getServerID(), ServerProcess.LockManager, "A:" + lock.getTransID() + ":" + lock.getPageNum() + ":" + server.getID(), lock.getDeadline()));
+                    if (lock.getServerID() == server.getID()) {
+                        if (lock.isConversion())
+                            server.getTM().lockConverted(lock.getTransID(), lock.getPageNum(), server.getID());
+                        else
+                            server.getTM().lockAcquired(lock.getTransID(), lock.getPageNum());
+                    } else {
+                        server.getNIC().sendMessage(new Message(lock.getServerID(), ServerProcess.LockManager, MessageType.LockGranted, lock.getDeadline(), lock.getTransID(), server.getID(), lock.isConversion() ? 1 : 0, lock.getPageNum()));
                     }
                 });
             }
-        });
+        }
     }
 
+    /**
+     * @return true if no other transaction holds a lock on the page that the mode is incompatible with.
+     * New locks also can't get past a waiting conversion they are incompatible with, so readers can't starve it.
+     */
+    private boolean isGrantable(LockMode mode, int transID, int pageNum, boolean conversion) {
+        for (Lock held = lockTable.getFirstHeld(pageNum); held != null; held = held.getNext())
+            if (held.getTransID() != transID && !mode.isCompatibleWith(held.getMode()))
+                return false;
+
+        if (!conversion)
+            for (Lock waiting = lockTable.getFirstWaiting(pageNum); waiting != null && waiting.isConversion(); waiting = waiting.getNext())
+                if (waiting.getTransID() != transID && !mode.isCompatibleWith(waiting.getMode()))
+                    return false;
+        return true;
+    }
 
     /**
-     * A|R:<pageNum>:<TransNum>:E|S
+     * @return the lock the transaction holds on the page, null if it has none
+     */
+    private Lock getHeldLock(int transID, int pageNum) {
+        for (Lock lock = lockTable.getFirstOf(transID); lock != null; lock = lock.getNextOfTrans())
+            if (lock.isHeld() && lock.getPageNum() == pageNum)
+                return lock;
+        return null;
+    }
+
+    /**
+     * Asks for a lock on a local page. If the transaction already holds a lock on the page, that one is converted to a
+     * mode that gives both. A conversion that can't be granted waits in front of the other waiting locks.
+     *
+     * @return true if the lock was granted straight away
+     */
+    private boolean requestLock(Lock lock) {
+        int transID = lock.getTransID();
+        int pageNum = lock.getPageNum();
+
+        Lock heldLock = getHeldLock(transID, pageNum);
+        if (heldLock != null) {
+            LockMode mode = heldLock.getMode().convertTo(lock.getMode());
+            if (mode == heldLock.getMode())
+                return true;
+
+            if (isGrantable(mode, transID, pageNum, true)) {
+                if (Log.isLoggingEnabled())
+                    log.log(transID, "Converted lock " + heldLock + " to " + mode);
+
+                heldLock.setMode(mode);
+                return true;
+            }
+
+            if (Log.isLoggingEnabled())
+                log.log(transID, "Converting lock " + heldLock + " to " + mode + " has to wait on " + lockTable.getHeld(pageNum));
+
+            lockTable.addConversion(new Lock(pageNum, transID, mode, lock.getDeadline(), lock.getServerID()));
+            simParams.stats.addConversionWait();
+            return false;
+        }
+
+        if (isGrantable(lock.getMode(), transID, pageNum, false)) {
+            lockTable.addHeld(lock);
+            return true;
+        }
+
+        if (Log.isLoggingEnabled())
+            log.log(transID, "Tried to acquire lock on page " + pageNum + " but I am waiting on " + lockTable.getHeld(pageNum));
+
+        lockTable.addWaiting(lock);
+        return false;
+    }
+
+
+    /**
+     * Every message is for one transaction and a group of pages, which are all handled at once
      * <p>
-     * ex
-     * L:5:42:2:E Acquire exclusive lock page 42 for trans 5 (which is on server 2)
-     * R:5:42 Release lock on page 42 for trans 5
-     * A:5:42:4 Acquired lock on page 42 for trans 5 on server 4
+     * LockRequest  - transID, requestingServerID, lock mode (LockMode ordinal), pages...
+     * LockRelease  - transID, pages...
+     * LockGranted  - transID, grantingServerID, conversion (1 or 0), pages...
      */
     public void receiveMessage(Message message) {
+        int transID = message.getField(0);
 
-        String msg = message.getContents();
-        String[] components = msg.split(":");
+        switch (message.getType()) {
+            case LockRequest: {
+                int serverID = message.getField(1);
+                LockMode mode = LockMode.values()[message.getField(2)];
 
-        int transID = Integer.parseInt(components[1]);
-        int pageNum = Integer.parseInt(components[2]);
+                //The locks that can be acquired straight away are granted in one message, and the conversions in another
+                List<Integer> grantedPages = new ArrayList<>();
+                List<Integer> convertedPages = new ArrayList<>();
 
-        switch (components[0]) {
-            case "L": {
-                if (Log.isLoggingEnabled())
-                    log.log(transID, "Remote lock request for page " + pageNum);
+                for (int i = 3; i < message.getNumFields(); i++) {
+                    int pageNum = message.getField(i);
 
-                int serverID = Integer.parseInt(components[3]);
-                boolean exclusive = components[4].equals(E);
+                    if (Log.isLoggingEnabled())
+                        log.log(transID, "Remote " + mode + " lock request for page " + pageNum);
 
-                List<Lock> locks = heldLocks.get(pageNum);
-                if (exclusive) {
-                    if (locks.isEmpty()) {
+                    boolean conversion = getHeldLock(transID, pageNum) != null;
+                    if (requestLock(new Lock(pageNum, transID, mode, message.getDeadline(), serverID))) {
                         if (Log.isLoggingEnabled())
                             log.log(transID, "Remote lock request for page " + pageNum + " accepted.");
 
-                        locks.add(new Lock(pageNum, transID, true, message.getDeadline(), serverID));
-                        server.getNIC().sendMessage(new Message(serverID, ServerProcess.LockManager, "A:" + transID + ":" + pageNum + ":" + server.getID(), message.getDeadline()));
+                        (conversion ? convertedPages : grantedPages).add(pageNum);
                     } else {
                         if (Log.isLoggingEnabled())
                             log.log(transID, "Remote lock request for page " + pageNum + " waiting.");
-
-                        waitingLocks.get(pageNum).add(new Lock(pageNum, transID, true, message.getDeadline(), serverID));
                     }
                 }
+
+                if (!grantedPages.isEmpty())
+                    server.getNIC().sendMessage(new Message(serverID, ServerProcess.LockManager, MessageType.LockGranted, message.getDeadline(), Message.withPages(grantedPages, transID, server.getID(), 0)));
+                if (!convertedPages.isEmpty())
+                    server.getNIC().sendMessage(new Message(serverID, ServerProcess.LockManager, MessageType.LockGranted, message.getDeadline(), Message.withPages(convertedPages, transID, server.getID(), 1)));
                 break;
             }
-            case "A": {
-                int serverID = Integer.parseInt(components[3]);
+            case LockGranted: {
+                int serverID = message.getField(1);
+                boolean conversion = message.getField(2) == 1;
 
-                if (Log.isLoggingEnabled())
-                    log.log(transID, "Acquired remote lock for page " + pageNum + " from server " + serverID);
+                for (int i = 3; i < message.getNumFields(); i++) {
+                    int pageNum = message.getField(i);
 
-                server.getTM().lockAcquired(transID, pageNum, serverID);
+                    if (Log.isLoggingEnabled())
+                        log.log(transID, (conversion ? "Converted" : "Acquired") + " remote lock for page " + pageNum + " from server " + serverID);
 
+                    if (conversion)
+                        server.getTM().lockConverted(transID, pageNum, serverID);
+                    else
+                        server.getTM().lockAcquired(transID, pageNum, serverID);
+                }
                 break;
             }
-            case "R": {
+            case LockRelease: {
+                Set<Integer> pageNums = new HashSet<>();
+                for (int i = 1; i < message.getNumFields(); i++)
+                    pageNums.add(message.getField(i));
+
                 if (Log.isLoggingEnabled())
-                    log.log(transID, "Received message to release lock on page " + pageNum);
+                    log.log(transID, "Received message to release locks on pages " + pageNums);
 
-                List<Lock> locks = heldLocks.get(pageNum);
-                for (int i = 0; i < locks.size(); i++) {
-                    if (locks.get(i).getTransID() == transID) {
-                        locks.remove(i);
-                        i--;
-                        if (Log.isLoggingEnabled())
-                            log.log(transID, "Released held lock for page " + pageNum + " on server " + server.getID());
-                    }
-                }
-                locks = waitingLocks.get(pageNum);
-                for (int i = 0; i < locks.size(); i++) {
-                    if (locks.get(i).getTransID() == transID) {
-                        locks.remove(i);
-                        i--;
-                        if (Log.isLoggingEnabled())
-                            log.log(transID, "Released waiting lock for page " + pageNum + " on server " + server.getID());
-                    }
-                }
-                simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::checkForObtainableLocks));
+                releaseLocalLocks(transID, pageNums);
                 break;
             }
         }
     }
 
+    /**
+     * Read pages are locked in S mode on this server. Write pages are locked on every server with the page, in X mode,
+     * or in U mode with update locks so readers can still get to the page until the locks are converted.
+     */
     public void acquireLocks(Transaction t) {
         if (Log.isLoggingEnabled())
             log.log(t, "acquireLocks(" + t);
@@ -175,206 +256,221 @@ public class LockManager {
         int serverID = server.getID();
 
         for (int pageNum : t.getReadPageNums()) {
-            List<Lock> locks = heldLocks.get(pageNum);
-
-            if (locks == null) //Safety check
+            if (!pageRange.contains(pageNum)) //Safety check
                 throw new WTFException("Transaction " + transID + " tried to acquire lock on page " + pageNum + " on server " + server.getID());
 
-            if (locks.isEmpty() || !locks.get(0).isExclusive()) {
-                //Acquire lock locally
-                locks.add(new Lock(pageNum, transID, false, t.getDeadline(), serverID));
+            //Shared locks do not need to be acquired everywhere
+            if (requestLock(new Lock(pageNum, transID, LockMode.S, t.getDeadline(), serverID)))
                 server.getTM().lockAcquired(t, pageNum);
-                //Shared locks do not need to be acquired everywhere
-            } else
-                waitingLocks.get(pageNum).add(new Lock(pageNum, transID, false, t.getDeadline(), serverID));
         }
 
-        for (int pageNum : t.getWritePageNums()) {
-            List<Lock> locks = heldLocks.get(pageNum);
+        LockMode writeMode = simParams.usesUpdateLocks() ? LockMode.U : LockMode.X;
 
-            if (locks.isEmpty()) {
-                //Acquire lock locally
-                locks.add(new Lock(pageNum, t.getID(), true, t.getDeadline(), serverID));
+        //Remote server ID -> the write pages to lock there, sent as one request per server
+        Map<Integer, List<Integer>> remotePages = new TreeMap<>();
+
+        for (int pageNum : t.getWritePageNums()) {
+            //Acquire lock locally
+            if (requestLock(new Lock(pageNum, transID, writeMode, t.getDeadline(), serverID)))
                 server.getTM().lockAcquired(t, pageNum);
-            } else {
-                if (Log.isLoggingEnabled())
-                    log.log(t, "Tried to acquire lock on page " + pageNum + " but I am waiting on " + locks);
 
-                waitingLocks.get(pageNum).add(new Lock(pageNum, transID, true, t.getDeadline(), serverID));
-            }
             //Acquire lock remotely
             List<Integer> serversWithPage = simParams.getServersWithPage(pageNum);
-            serversWithPage.forEach(servID -> {
-                if (server.getID() != servID) {
-                    server.getNIC().sendMessage(new Message(servID, ServerProcess.LockManager, "L:" + transID + ":" + pageNum + ":" + server.getID() + ":E", t.getDeadline()));
-                }
-            });
-            t.getWritePageNumsToServersWithPage().put(pageNum, serversWithPage);
+            addRemotePage(remotePages, serversWithPage, pageNum);
+            t.setServersWithPage(pageNum, serversWithPage);
         }
-    }
 
+        remotePages.forEach((servID, pageNums) ->
+                server.getNIC().sendMessage(new Message(servID, ServerProcess.LockManager, MessageType.LockRequest, t.getDeadline(), Message.withPages(pageNums, transID, server.getID(), writeMode.ordinal()))));
+    }
 
-    public void abort(Transaction t) {
+    /**
+     * Converts the transaction's write locks to the mode, here and on the other servers with the pages.
+     * The conversions that don't have to wait are counted on the transaction straight away, the rest are reported to the TM when they are granted.
+     */
+    public void convertLocks(Transaction t, LockMode mode) {
         if (Log.isLoggingEnabled())
-            log.log(t, "Releasing locks");
+            log.log(t, "Converting write locks to " + mode);
 
         int transID = t.getID();
 
-        readPages:
-        for (int pageNum : t.getReadPageNums()) {
-            releaseLocks(t.getID(), pageNum, 0);
-
-//            List<Lock> locks = waitingLocks.get(pageNum);
-//            for (int i = 0; i < locks.size(); i++) {
-//                Lock l = locks.get(i);
-//                if( l.getTransID() == transID ){
-//                    locks.remove(l);
-//                    continue readPages;
-//                }
-//            }
-//
-//            locks = heldLocks.get(pageNum);
-//            for (int i = 0; i < locks.size(); i++) {
-//                Lock l = locks.get(i);
-//                if( l.getTransID() == transID ){
-//                    locks.remove(l);
-//                    continue readPages;
-//                }
-//            }
-
+        //Remote server ID -> the write pages to convert there
+        Map<Integer, List<Integer>> remotePages = new TreeMap<>();
 
-        }
-
-        writePages:
         for (int pageNum : t.getWritePageNums()) {
-            releaseLocks(t.getID(), pageNum, 0);
-
-//            List<Lock> locks = waitingLocks.get(pageNum);
-//            for (int i = 0; i < locks.size(); i++) {
-//                Lock l = locks.get(i);
-//                if( l.getTransID() == transID ){
-//                    locks.remove(l);
-//                    continue writePages;
-//                }
-//            }
-//
-//            locks = heldLocks.get(pageNum);
-//            for (int i = 0; i < locks.size(); i++) {
-//                Lock l = locks.get(i);
-//                if( l.getTransID() == transID ){
-//                    locks.remove(l);
-//                    continue writePages;
-//                }
-//            }
+            if (requestLock(new Lock(pageNum, transID, mode, t.getDeadline(), server.getID())))
+                t.lockConverted(pageNum, server.getID());
+
+            addRemotePage(remotePages, t.getWritePageNumsToServersWithPage().get(pageNum), pageNum);
         }
 
-        simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::checkForObtainableLocks));
+        remotePages.forEach((servID, pageNums) ->
+                server.getNIC().sendMessage(new Message(servID, ServerProcess.LockManager, MessageType.LockRequest, t.getDeadline(), Message.withPages(pageNums, transID, server.getID(), mode.ordinal()))));
     }
 
-    /**
-     * Releases only local locks
-     */
-    public void releaseLock(int transID, int pageNum) {
 
+    public void abort(Transaction t) {
         if (Log.isLoggingEnabled())
-            log.log(transID, "Trying to release lock on page " + pageNum);
-
-        //Check for waiting locks
-        Lock releasedLock = null;
-        for (Lock lock : waitingLocks.get(pageNum)) {
-            if (transID == lock.getTransID())
-                releasedLock = lock;
-        }
+            log.log(t, "Releasing locks");
 
-        if (releasedLock != null) {
-            if (Log.isLoggingEnabled())
-                log.log(transID, "Releasing waiting lock - " + releasedLock);
+        Set<Integer> pageNums = new TreeSet<>(t.getReadPageNums());
+        pageNums.addAll(t.getWritePageNums());
+        releaseLocks(t.getID(), pageNums, 0);
+    }
 
-            waitingLocks.get(pageNum).remove(releasedLock);
+    /**
+     * Releases the transaction's held and waiting locks on the pages, only local locks.
+     * Only the transaction's own locks are looked at. The TM is told even if the transaction runs on another server,
+     * a transaction waiting to restart there may be waiting for it.
+     */
+    private void releaseLocalLocks(int transID, Collection<Integer> pageNums) {
+        for (Lock lock = lockTable.getFirstOf(transID); lock != null; ) {
+            Lock next = lock.getNextOfTrans();
+            if (pageNums.contains(lock.getPageNum())) {
+                if (Log.isLoggingEnabled())
+                    log.log(transID, "Releasing " + (lock.isHeld() ? "held" : "waiting") + " lock " + lock + " on server " + server.getID());
 
-            simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::checkForObtainableLocks));
-            return;
+                lockTable.remove(lock);
+                lockReleased(lock.getPageNum());
+            }
+            lock = next;
         }
 
-        if (Log.isLoggingEnabled())
-            log.log(transID, "Lock not found in waiting locks for page " + pageNum);
-
-        //Now check for held locks because there were no waiting locks
-
-        boolean found = false;
-        releasedLock = null;
-        for (Lock lock : heldLocks.get(pageNum)) {
-            if (transID == lock.getTransID()) {
-                if (found)
-                    throw new WTFException(serverID + ": Found multiple locks on page " + pageNum + " for trans " + transID + " found: " + releasedLock + " and " + lock);
-                releasedLock = lock;
-                found = true;
+        server.getTM().locksReleased(transID);
+    }
+
+    /**
+     * Adds the page to the pages of every other server that has it. A plain loop over the shared list, this runs for every page locked or released.
+     */
+    private void addRemotePage(Map<Integer, List<Integer>> remotePages, List<Integer> serversWithPage, int pageNum) {
+        for (int i = 0; i < serversWithPage.size(); i++) {
+            int serverID = serversWithPage.get(i);
+            if (serverID == server.getID())
+                continue;
+
+            List<Integer> pageNums = remotePages.get(serverID);
+            if (pageNums == null) {
+                pageNums = new ArrayList<>();
+                remotePages.put(serverID, pageNums);
             }
+            pageNums.add(pageNum);
         }
+    }
+
+    /**
+     * Releases remote and local locks. The remote ones are released with one message per server.
+     */
+    public void releaseLocks(int transID, Collection<Integer> pageNums, int deadline) {
+        releaseLocalLocks(transID, pageNums);
+
+        //Remote server ID -> the pages to release there
+        Map<Integer, List<Integer>> remotePages = new TreeMap<>();
 
-        if (releasedLock == null) {
+        for (int pageNum : pageNums) {
+            List<Integer> serversWithPage = simParams.getServersWithPage(pageNum);
             if (Log.isLoggingEnabled())
-                log.log(transID, "Did not find held lock on page " + pageNum);
+                log.log(transID, "Servers " + serversWithPage + " have page " + pageNum);
 
-        } else {
+            addRemotePage(remotePages, serversWithPage, pageNum);
+        }
+
+        remotePages.forEach((serverID, remotePageNums) -> {
             if (Log.isLoggingEnabled())
-                log.log(transID, "Releasing held lock " + releasedLock + " on page " + pageNum);
+                log.log(transID, "Sending message to server " + serverID + " to release locks on pages " + remotePageNums);
 
-            boolean successfullyRemoved = heldLocks.get(pageNum).remove(releasedLock);
+            server.getNIC().sendMessage(new Message(serverID, ServerProcess.LockManager, MessageType.LockRelease, deadline, Message.withPages(remotePageNums, transID)));
+        });
+    }
 
-            if (!successfullyRemoved)
-                throw new WTFException(serverID + ": Lock " + releasedLock + " not successfully removed on page " + pageNum + " for trans " + transID);
+    /**
+     * @return the locks held on the page, in the order they were acquired
+     */
+    public List<Lock> getHeldLocks(int pageNum) {
+        return lockTable.getHeld(pageNum);
+    }
 
-            simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::checkForObtainableLocks));
-        }
+    /**
+     * @return the locks other transactions hold on the page that the waiting lock is incompatible with
+     */
+    public List<Lock> getBlockingLocks(Lock waitingLock) {
+        List<Lock> locks = new ArrayList<>();
+        for (Lock held = lockTable.getFirstHeld(waitingLock.getPageNum()); held != null; held = held.getNext())
+            if (held.getTransID() != waitingLock.getTransID() && !waitingLock.getMode().isCompatibleWith(held.getMode()))
+                locks.add(held);
+        return locks;
     }
 
+    /**
+     * @return the locks held on every page, by page
+     */
+    public List<Lock> getAllHeldLocks() {
+        return getAllLocks(true);
+    }
 
     /**
-     * Releases remote and local locks
+     * @return the locks waiting on every page, by page
      */
-    public void releaseLocks(int transID, int pageNum, int deadline) {
-        if (Log.isLoggingEnabled())
-            log.log(transID, "Releasing all locks on page " + pageNum);
+    public List<Lock> getAllWaitingLocks() {
+        return getAllLocks(false);
+    }
 
-        if (pageRange.contains(pageNum)) {
-            releaseLock(transID, pageNum);
-        } else {
-            if (Log.isLoggingEnabled())
-                log.log(transID, "Page num outside range of this server " + pageRange);
-        }
+    private List<Lock> getAllLocks(boolean held) {
+        List<Lock> locks = new ArrayList<>();
 
-        List<Integer> serversWithPage = simParams.getServersWithPage(pageNum);
-        if (Log.isLoggingEnabled())
-            log.log(transID, "Servers " + serversWithPage + " have page " + pageNum);
+        BitSet usedPages = lockTable.getUsedPages();
+        for (int i = usedPages.nextSetBit(0); i >= 0; i = usedPages.nextSetBit(i + 1)) {
+            int pageNum = lockTable.getMinPage() + i;
+            for (Lock lock = held ? lockTable.getFirstHeld(pageNum) : lockTable.getFirstWaiting(pageNum); lock != null; lock = lock.getNext())
+                locks.add(lock);
+        }
+        return locks;
+    }
 
-        serversWithPage.stream()
-                .filter(serverID -> serverID != server.getID())
-                .forEach(serverID -> {
-                    if (Log.isLoggingEnabled())
-                        log.log(transID, "Sending message to server " + serverID + " to release lock on page " + pageNum);
+    /**
+     * The locks held by all transactions over the locks held by the transactions that aren't waiting for one.
+     * It stays close to 1 until more concurrency only causes lock conflicts, then goes up quickly.
+     *
+     * @return the conflict ratio, 1 if no lock is held by a waiting transaction
+     */
+    public double getConflictRatio() {
+        Set<Integer> waitingTrans = new HashSet<>();
+        getAllWaitingLocks().forEach(lock -> waitingTrans.add(lock.getTransID()));
+
+        int held = 0;
+        int heldByRunning = 0;
+        for (Lock lock : getAllHeldLocks()) {
+            held++;
+            if (!waitingTrans.contains(lock.getTransID()))
+                heldByRunning++;
+        }
 
-                    server.getNIC().sendMessage(new Message(serverID, ServerProcess.LockManager, "R:" + transID + ":" + pageNum, deadline));
-                });
+        if (held == heldByRunning)
+            return 1;
+        return heldByRunning == 0 ? Double.POSITIVE_INFINITY : (double) held / heldByRunning;
     }
 
-    public Map<Integer, List<Lock>> getHeldLocks() {
-        return heldLocks;
+    /**
+     * @return the locks the transaction is waiting for on this server, by page
+     */
+    public List<Lock> getAllWaitingLocksFor(int transID) {
+        return getLocksFor(transID, false);
     }
 
-    public Map<Integer, List<Lock>> getWaitingLocks() {
-        return waitingLocks;
+    /**
+     * @return the locks the transaction holds on this server, by page
+     */
+    public List<Lock> getAllHeldLocksFor(int transID) {
+        return getLocksFor(transID, true);
     }
 
-    public List<Lock> getAllWaitingLocksFor(int transID) {
+    private List<Lock> getLocksFor(int transID, boolean held) {
         List<Lock> tLocks = new ArrayList<>();
 
-        waitingLocks.values().forEach(locks -> locks.forEach(lock -> {
-            if (lock.getTransID() == transID) {
+        for (Lock lock = lockTable.getFirstOf(transID); lock != null; lock = lock.getNextOfTrans())
+            if (lock.isHeld() == held)
                 tLocks.add(lock);
-            }
-        }));
 
+        tLocks.sort(Comparator.comparingInt(Lock::getPageNum));
         return tLocks;
     }
-}
\ No newline at end of file
+}
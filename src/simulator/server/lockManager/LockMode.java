@@ -0,0 +1,45 @@
+package simulator.server.lockManager;
+
+/**
+ * The modes a lock can be held in.
+ * S and X are for reading and writing a page. U is for a page that is read and then written: it can be held alongside
+ * readers but not another U or X, and is converted to X before writing, so two transactions that both want to write the
+ * page can't deadlock converting.
+ */
+public enum LockMode {
+    S, U, X;
+
+    /**
+     * COMPATIBLE[held][requested]
+     */
+    private static final boolean[][] COMPATIBLE = {
+            //         S      U      X
+            /* S */ {true, true, false},
+            /* U */ {true, false, false},
+            /* X */ {false, false, false},
+    };
+
+    /**
+     * CONVERSION[held][requested], the weakest mode that is incompatible with everything either of them is
+     */
+    private static final LockMode[][] CONVERSION = {
+            //         S  U  X
+            /* S */ {S, U, X},
+            /* U */ {U, U, X},
+            /* X */ {X, X, X},
+    };
+
+    /**
+     * @return true if a lock in this mode can be granted while another transaction holds one in the held mode
+     */
+    public boolean isCompatibleWith(LockMode held) {
+        return COMPATIBLE[held.ordinal()][ordinal()];
+    }
+
+    /**
+     * @return the mode a lock held in this mode has to be converted to, to also have the requested mode
+     */
+    public LockMode convertTo(LockMode requested) {
+        return CONVERSION[ordinal()][requested.ordinal()];
+    }
+}
@@ -0,0 +1,238 @@
+package simulator.server.lockManager;
+
+import java.util.*;
+
+/**
+ * The held and waiting locks of the pages in a server's range, indexed by the page's offset in the range.
+ * A page only has an entry while it has locks. Each entry keeps its held and waiting locks in queues linked through the
+ * locks themselves, so adding or removing a lock is O(1) and doesn't allocate.
+ * <p>
+ * The locks of each transaction are also linked together, so finding or releasing them only touches that transaction's locks.
+ */
+class LockTable {
+
+    private static class Entry {
+        private Lock firstHeld, lastHeld;
+        private Lock firstWaiting, lastWaiting;
+    }
+
+    private final Range pageRange;
+    private final Entry[] entries;
+
+    /**
+     * The offsets of the pages that have an entry
+     */
+    private final BitSet usedPages = new BitSet();
+
+    /**
+     * transID -> the first lock in the transaction's chain of held and waiting locks
+     */
+    private final Map<Integer, Lock> firstOfTrans = new HashMap<>();
+
+    LockTable(Range pageRange) {
+        this.pageRange = pageRange;
+        entries = new Entry[pageRange.getMax() - pageRange.getMin() + 1];
+    }
+
+    /**
+     * @return the first lock held on the page, null if there are none. The rest follow through Lock.getNext.
+     */
+    Lock getFirstHeld(int pageNum) {
+        Entry entry = entries[pageNum - pageRange.getMin()];
+        return entry == null ? null : entry.firstHeld;
+    }
+
+    /**
+     * @return the first lock waiting on the page, null if there are none. The rest follow through Lock.getNext.
+     */
+    Lock getFirstWaiting(int pageNum) {
+        Entry entry = entries[pageNum - pageRange.getMin()];
+        return entry == null ? null : entry.firstWaiting;
+    }
+
+    /**
+     * @return the first lock of the transaction, held or waiting, null if it has none. The rest follow through Lock.getNextOfTrans.
+     */
+    Lock getFirstOf(int transID) {
+        return firstOfTrans.get(transID);
+    }
+
+    void addHeld(Lock lock) {
+        enqueueHeld(getOrAddEntry(lock.getPageNum()), lock);
+        linkToTrans(lock);
+    }
+
+    void addWaiting(Lock lock) {
+        enqueueWaiting(getOrAddEntry(lock.getPageNum()), lock);
+        linkToTrans(lock);
+    }
+
+    /**
+     * Adds a lock waiting to convert a held lock. It goes in front of the other waiting locks, except earlier conversions.
+     */
+    void addConversion(Lock lock) {
+        Entry entry = getOrAddEntry(lock.getPageNum());
+        lock.held = false;
+        lock.conversion = true;
+
+        Lock before = null;
+        for (Lock waiting = entry.firstWaiting; waiting != null && waiting.conversion; waiting = waiting.next)
+            before = waiting;
+
+        Lock after = before == null ? entry.firstWaiting : before.next;
+        lock.prev = before;
+        lock.next = after;
+        if (before != null)
+            before.next = lock;
+        else
+            entry.firstWaiting = lock;
+        if (after != null)
+            after.prev = lock;
+        else
+            entry.lastWaiting = lock;
+
+        linkToTrans(lock);
+    }
+
+    /**
+     * Moves a waiting lock to the held locks of its page
+     */
+    void grant(Lock lock) {
+        Entry entry = entries[lock.getPageNum() - pageRange.getMin()];
+        dequeue(entry, lock);
+        enqueueHeld(entry, lock);
+    }
+
+    /**
+     * Removes a held or waiting lock
+     */
+    void remove(Lock lock) {
+        Entry entry = entries[lock.getPageNum() - pageRange.getMin()];
+        dequeue(entry, lock);
+        unlinkFromTrans(lock);
+        removeIfEmpty(lock.getPageNum(), entry);
+    }
+
+    private static void enqueueHeld(Entry entry, Lock lock) {
+        lock.held = true;
+        link(lock, entry.lastHeld);
+        if (entry.firstHeld == null)
+            entry.firstHeld = lock;
+        entry.lastHeld = lock;
+    }
+
+    private static void enqueueWaiting(Entry entry, Lock lock) {
+        lock.held = false;
+        link(lock, entry.lastWaiting);
+        if (entry.firstWaiting == null)
+            entry.firstWaiting = lock;
+        entry.lastWaiting = lock;
+    }
+
+    private static void dequeue(Entry entry, Lock lock) {
+        if (lock.held) {
+            if (entry.firstHeld == lock)
+                entry.firstHeld = lock.next;
+            if (entry.lastHeld == lock)
+                entry.lastHeld = lock.prev;
+        } else {
+            if (entry.firstWaiting == lock)
+                entry.firstWaiting = lock.next;
+            if (entry.lastWaiting == lock)
+                entry.lastWaiting = lock.prev;
+        }
+        unlink(lock);
+    }
+
+    /**
+     * Adds the lock to the front of its transaction's chain
+     */
+    private void linkToTrans(Lock lock) {
+        Lock first = firstOfTrans.put(lock.getTransID(), lock);
+        lock.prevOfTrans = null;
+        lock.nextOfTrans = first;
+        if (first != null)
+            first.prevOfTrans = lock;
+    }
+
+    private void unlinkFromTrans(Lock lock) {
+        if (lock.prevOfTrans != null)
+            lock.prevOfTrans.nextOfTrans = lock.nextOfTrans;
+        else if (lock.nextOfTrans != null)
+            firstOfTrans.put(lock.getTransID(), lock.nextOfTrans);
+        else
+            firstOfTrans.remove(lock.getTransID());
+
+        if (lock.nextOfTrans != null)
+            lock.nextOfTrans.prevOfTrans = lock.prevOfTrans;
+        lock.prevOfTrans = null;
+        lock.nextOfTrans = null;
+    }
+
+    /**
+     * @return the locks held on the page, in the order they were acquired
+     */
+    List<Lock> getHeld(int pageNum) {
+        return toList(getFirstHeld(pageNum));
+    }
+
+    /**
+     * @return the locks waiting on the page, in the order they were requested
+     */
+    List<Lock> getWaiting(int pageNum) {
+        return toList(getFirstWaiting(pageNum));
+    }
+
+    /**
+     * @return the pages that have held or waiting locks, as offsets in the range
+     */
+    BitSet getUsedPages() {
+        return usedPages;
+    }
+
+    int getMinPage() {
+        return pageRange.getMin();
+    }
+
+    private Entry getOrAddEntry(int pageNum) {
+        int i = pageNum - pageRange.getMin();
+        Entry entry = entries[i];
+        if (entry == null) {
+            entry = new Entry();
+            entries[i] = entry;
+            usedPages.set(i);
+        }
+        return entry;
+    }
+
+    private void removeIfEmpty(int pageNum, Entry entry) {
+        if (entry.firstHeld == null && entry.firstWaiting == null) {
+            int i = pageNum - pageRange.getMin();
+            entries[i] = null;
+            usedPages.clear(i);
+        }
+    }
+
+    private static void link(Lock lock, Lock last) {
+        lock.prev = last;
+        lock.next = null;
+        if (last != null)
+            last.next = lock;
+    }
+
+    private static void unlink(Lock lock) {
+        if (lock.prev != null)
+            lock.prev.next = lock.next;
+        if (lock.next != null)
+            lock.next.prev = lock.prev;
+        lock.prev = null;
+        lock.next = null;
+    }
+
+    private static List<Lock> toList(Lock first) {
+        List<Lock> locks = new ArrayList<>();
+        for (Lock lock = first; lock != null; lock = lock.next)
+            locks.add(lock);
+        return locks;
+    }
+}
@@ -0,0 +1,77 @@
+package simulator.server.lockManager;
+
+import java.util.*;
+
+/**
+ * Which servers have each page, built once from the servers' page ranges.
+ * The pages are split into intervals that are on the same servers, and every interval has one shared read-only list
+ * of them, so a lookup doesn't allocate. Up to MAX_DIRECT_PAGES pages each page points to its list directly,
+ * past that the interval is found with a binary search.
+ */
+public class ReplicaIndex {
+
+    private static final int MAX_DIRECT_PAGES = 1 << 20;
+
+    /**
+     * The first page of every interval, in order
+     */
+    private final int[] intervalStarts;
+    private final List<List<Integer>> intervalServers = new ArrayList<>();
+
+    /**
+     * page -> the servers with it, null if there are too many pages
+     */
+    private final List<List<Integer>> byPage;
+
+    /**
+     * @param serverToPageRange server ID -> the pages it has
+     */
+    public ReplicaIndex(Map<Integer, Range> serverToPageRange) {
+        Map<Integer, Range> ranges = new TreeMap<>(serverToPageRange);
+
+        SortedSet<Integer> boundaries = new TreeSet<>();
+        ranges.values().forEach(range -> {
+            boundaries.add(range.getMin());
+            boundaries.add(range.getMax() + 1);
+        });
+
+        intervalStarts = new int[boundaries.size()];
+        int i = 0;
+        for (int start : boundaries) {
+            intervalStarts[i++] = start;
+
+            List<Integer> servers = new ArrayList<>();
+            ranges.forEach((serverID, range) -> {
+                if (range.contains(start))
+                    servers.add(serverID);
+            });
+            intervalServers.add(Collections.unmodifiableList(servers));
+        }
+
+        int numPages = boundaries.isEmpty() ? 0 : boundaries.last();
+        if (numPages <= MAX_DIRECT_PAGES) {
+            byPage = new ArrayList<>(numPages);
+            for (int pageNum = 0; pageNum < numPages; pageNum++)
+                byPage.add(lookUp(pageNum));
+        } else
+            byPage = null;
+    }
+
+    /**
+     * @return the servers that have the page, in order of ID. The list is shared and can't be changed.
+     */
+    public List<Integer> getServersWithPage(int pageNum) {
+        if (byPage != null && pageNum >= 0 && pageNum < byPage.size())
+            return byPage.get(pageNum);
+        return lookUp(pageNum);
+    }
+
+    private List<Integer> lookUp(int pageNum) {
+        int i = Arrays.binarySearch(intervalStarts, pageNum);
+        if (i < 0)
+            i = -i - 2;
+        if (i < 0)
+            return Collections.emptyList();
+        return intervalServers.get(i);
+    }
+}
@@ -1,14 +1,31 @@
 package simulator.server.network;
 
+import exceptions.WTFException;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 
+import java.util.Arrays;
+import java.util.List;
+
 public class Message implements Comparable<Message> {
 
-    public static final String OBJECT = "OBJECT";
+    /**
+     * Every message has a one byte type and its deadline, on top of its fields
+     */
+    public static final int HEADER_BYTES = 1 + Integer.BYTES;
+
+    /**
+     * How many encoded bytes make up one unit of message size (bandwidth and link rate are in these units)
+     */
+    public static final int BYTES_PER_SIZE_UNIT = 32;
+
+    public static final int[] NO_FIELDS = new int[0];
 
     private final int destServerID;
     private final ServerProcess process;
+    private final MessageType type;
+    private final int[] fields;
     private final String contents;
     private final int deadline;
     private final Object object;
@@ -16,29 +33,57 @@ public class Message implements Comparable<Message> {
     private boolean reoccuring;
     private int size = 1;
 
+    /**
+     * A free text message
+     */
     public Message(int destServerID, ServerProcess process, String contents, int deadline) {
         this.destServerID = destServerID;
         this.process = process;
         this.contents = contents;
         this.deadline = deadline;
+        type = MessageType.Text;
+        fields = NO_FIELDS;
         object = null;
     }
 
-    public Message(int destServerID, ServerProcess process, String contents, Object object, int deadline) {
-        this.destServerID = destServerID;
-        this.process = process;
-        this.object = object;
-        this.deadline = deadline;
-        this.contents = contents;
+    public Message(int destServerID, ServerProcess process, MessageType type, int deadline, int... fields) {
+        this(destServerID, process, type, fields, null, deadline);
     }
 
-    public Message(int destServerID, ServerProcess process, Object object, int deadline) {
+    /**
+     * The size is set from the encoded fields. If the object is more than a few bytes the sender should set the size itself.
+     */
+    public Message(int destServerID, ServerProcess process, MessageType type, int[] fields, Object object, int deadline) {
+        if (type.getNumFields() != -1 && fields.length != type.getNumFields())
+            throw new WTFException(type + " messages have " + type.getNumFields() + " fields, not " + fields.length + ": " + Arrays.toString(fields));
+
         this.destServerID = destServerID;
         this.process = process;
+        this.type = type;
+        this.fields = fields;
         this.object = object;
         this.deadline = deadline;
-        this.contents = OBJECT;
+        contents = null;
+        size = getEncodedSize(fields.length);
+    }
 
+    /**
+     * @return the fields of a message that lists pages, the first fields followed by the pages
+     */
+    public static int[] withPages(List<Integer> pageNums, int... firstFields) {
+        int[] fields = Arrays.copyOf(firstFields, firstFields.length + pageNums.size());
+        int i = firstFields.length;
+        for (int pageNum : pageNums)
+            fields[i++] = pageNum;
+        return fields;
+    }
+
+    /**
+     * @return the size of a message with this many fields, in size units
+     */
+    public static int getEncodedSize(int numFields) {
+        int bytes = HEADER_BYTES + numFields * Integer.BYTES;
+        return (bytes + BYTES_PER_SIZE_UNIT - 1) / BYTES_PER_SIZE_UNIT;
     }
 
     public int getDestServerID() {
@@ -52,10 +97,30 @@ public class Message implements Comparable<Message> {
         return process;
     }
 
+    public MessageType getType() {
+        return type;
+    }
+
+    /**
+     * @return the field at the index, see MessageType for what the fields of each type are
+     */
+    public int getField(int index) {
+        return fields[index];
+    }
+
+    public int getNumFields() {
+        return fields.length;
+    }
+
+    /**
+     * @return all the fields. The array is not copied.
+     */
+    public int[] getFields() {
+        return fields;
+    }
+
     /**
-     * This is normally used for network communications. Sometimes though, an object is needs to be sent.
-     *
-     * @return a string normally in the form A:54:19 where A, 54, and 19 are specific to the ServerProcess this message is going to. See TransactionManagers receive message for clarity.
+     * @return the text of a Text message, null for every other type
      */
     public String getContents() {
         return contents;
@@ -79,7 +144,8 @@ public class Message implements Comparable<Message> {
         return "Message{" +
                 "destServerID=" + destServerID +
                 ", process=" + process +
-                ", contents=" + contents +
+                ", type=" + type +
+                (type == MessageType.Text ? ", contents=" + contents : ", fields=" + Arrays.toString(fields)) +
                 ", size=" + size +
                 '}';
     }
@@ -0,0 +1,68 @@
+package simulator.server.network;
+
+import simulator.enums.MessageType;
+import simulator.enums.ServerProcess;
+
+import java.util.Arrays;
+
+/**
+ * A message for several servers. It is sent down the sender's spanning tree and copied where the tree branches,
+ * so each link carries it at most once. The destinations get it as a normal Message addressed to them.
+ */
+public class MulticastMessage extends Message {
+
+    private final int sourceServerID;
+    private final int[] destServerIDs;
+
+    public MulticastMessage(int sourceServerID, int[] destServerIDs, ServerProcess process, MessageType type, int[] fields, Object object, int deadline) {
+        super(-1, process, type, fields, object, deadline);
+        this.sourceServerID = sourceServerID;
+        this.destServerIDs = destServerIDs;
+    }
+
+    /**
+     * @return the server that sent the message. Its spanning tree is the one the message follows.
+     */
+    public int getSourceServerID() {
+        return sourceServerID;
+    }
+
+    /**
+     * @return the servers this copy still has to reach. The array is not copied.
+     */
+    public int[] getDestServerIDs() {
+        return destServerIDs;
+    }
+
+    /**
+     * @return a copy of this message that only goes to the given servers
+     */
+    MulticastMessage copyFor(int[] destServerIDs) {
+        MulticastMessage copy = new MulticastMessage(sourceServerID, destServerIDs, getProcess(), getType(), getFields(), getObject(), getDeadline());
+        copy.setSize(getSize());
+        copy.setReoccuring(isReoccuring());
+        return copy;
+    }
+
+    /**
+     * @return the message as it is delivered to one of the destinations
+     */
+    Message toUnicast(int destServerID) {
+        Message msg = new Message(destServerID, getProcess(), getType(), getFields(), getObject(), getDeadline());
+        msg.setSize(getSize());
+        msg.setReoccuring(isReoccuring());
+        return msg;
+    }
+
+    @Override
+    public String toString() {
+        return "MulticastMessage{" +
+                "sourceServerID=" + sourceServerID +
+                ", destServerIDs=" + Arrays.toString(destServerIDs) +
+                ", process=" + getProcess() +
+                ", type=" + getType() +
+                ", fields=" + Arrays.toString(getFields()) +
+                ", size=" + getSize() +
+                '}';
+    }
+}
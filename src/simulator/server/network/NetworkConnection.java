@@ -1,6 +1,7 @@
 package simulator.server.network;
 
 import simulator.SimParams;
+import simulator.enums.LinkScheduling;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.server.Server;
@@ -9,11 +10,10 @@ import ui.Log;
 import java.util.ArrayList;
 import java.util.List;
 import java.util.PriorityQueue;
-import java.util.Queue;
 import java.util.function.Consumer;
 
 public class NetworkConnection {
-    private static final int bandwidth = SimParams.Bandwidth;
+    private final int bandwidth;
     private static final int latency = SimParams.latency;
 
     private final Log log;
@@ -25,11 +25,52 @@ public class NetworkConnection {
     private final Server dest;
 
     private int sizeOnTheWire = 0;
+    private int queuedSize = 0;
     private List<Message> onTheWire = new ArrayList<>();
-    private Queue<Message> queue = new PriorityQueue<>();
+    private final PriorityQueue<QueuedMessage> queue = new PriorityQueue<>();
+    private final LinkScheduling scheduling;
+    private long nextSequenceNumber;
+
+    /**
+     * Size units this link can put on the wire per tick, 0 if messages take no time to send
+     */
+    private final double rate;
+    private int busyUntil;
+
+    /**
+     * When this is more than 0, messages are sent in frames: everything queued within this many ticks goes out (and arrives) together
+     */
+    private final int frameWindow;
+    private boolean flushScheduled;
+
+    //Statistics
+    private int messagesSent;
+    private long sizeSent;
+    private long busyTime;
+    private long totalQueueingDelay;
+    private int maxQueueingDelay;
+    private int framesSent;
+
+    /**
+     * Weighted fair queueing state. The virtual time is the finish tag of the last message sent.
+     */
+    private double virtualTime;
+    private final double[] lastFinishTag = new double[ServerProcess.values().length];
 
     public NetworkConnection(SimParams simParams, Server src, Server dest) {
+        this(simParams, src, dest, SimParams.Bandwidth);
+    }
+
+    /**
+     * @param bandwidth the total size of the messages that can be on the wire at once
+     */
+    public NetworkConnection(SimParams simParams, Server src, Server dest, int bandwidth) {
         this.simParams = simParams;
+        this.bandwidth = bandwidth;
+        scheduling = simParams.getLinkScheduling();
+        //Fatter links send proportionally faster
+        rate = simParams.getLinkRate() * ((double) bandwidth / SimParams.Bandwidth);
+        frameWindow = simParams.getFrameWindow();
         log = new Log(ServerProcess.NetworkConnection, src.getID(), simParams.timeProvider, simParams.log);
 
         this.src = src;
@@ -43,8 +84,16 @@ public class NetworkConnection {
         if (Log.isLoggingEnabled())
             log.log(src.getID() + ": Send message: " + msg);
 
-        queue.add(msg);
-        eventQueue.accept(new Event(simParams.getTime() + 1, src.getID(), this::checkForRoomForMessage, true));
+        queue.add(new QueuedMessage(msg, getTag(msg), nextSequenceNumber++, simParams.getTime()));
+        queuedSize += msg.getSize();
+
+        if (frameWindow <= 0) {
+            eventQueue.accept(new Event(simParams.getTime() + 1, src.getID(), this::checkForRoomForMessage, true));
+        } else if (!flushScheduled) {
+            //The first message of a frame opens the window, the rest just join the queue
+            flushScheduled = true;
+            eventQueue.accept(new Event(simParams.getTime() + frameWindow, src.getID(), this::checkForRoomForMessage, true));
+        }
     }
 
     private void messageArrives(Message msg) {
@@ -59,13 +108,64 @@ public class NetworkConnection {
         eventQueue.accept(new Event(simParams.getTime() + 1, dest.getID(), this::checkForRoomForMessage, true));
     }
 
+    /**
+     * All the messages in a frame arrive at once, in the order they were sent
+     */
+    private void frameArrives(List<Message> frame) {
+        if (Log.isLoggingEnabled())
+            log.log(dest.getID() + ": Frame of " + frame.size() + " messages arrives at dest");
+
+        for (Message msg : frame) {
+            onTheWire.remove(msg);
+            sizeOnTheWire -= msg.getSize();
+        }
+
+        frame.forEach(msgConsumer);
+
+        eventQueue.accept(new Event(simParams.getTime() + 1, dest.getID(), this::checkForRoomForMessage, true));
+    }
+
+    /**
+     * Sends the next message if the link is not busy sending another one and there is room on the wire.
+     * A message takes getTransmissionTime ticks to put on the wire, and then arrives latency ticks later.
+     */
     private void checkForRoomForMessage() {
+        if (frameWindow > 0) {
+            sendFrame();
+            return;
+        }
+
+        int time = simParams.getTime();
+
+        if (time < busyUntil) {
+            //There is already a check when the link is done sending
+            if (Log.isLoggingEnabled())
+                log.log(src.getID() + ": Link busy until " + busyUntil);
+        } else if (!queue.isEmpty() && (bandwidth - sizeOnTheWire) >= queue.peek().msg.getSize()) {
+            QueuedMessage next = queue.remove();
+            Message msg = next.msg;
+            queuedSize -= msg.getSize();
+            if (scheduling == LinkScheduling.WeightedFair)
+                virtualTime = next.tag;
+
+            int transmissionTime = getTransmissionTime(msg.getSize());
+            int queueingDelay = time - next.queuedTime;
+
+            messagesSent++;
+            sizeSent += msg.getSize();
+            busyTime += transmissionTime;
+            totalQueueingDelay += queueingDelay;
+            maxQueueingDelay = Math.max(maxQueueingDelay, queueingDelay);
+            simParams.stats.addLinkTransmission(transmissionTime, queueingDelay);
 
-        if (!queue.isEmpty() && (bandwidth - sizeOnTheWire) >= queue.peek().getSize()) {
-            Message msg = queue.remove();
             onTheWire.add(msg);
             sizeOnTheWire += msg.getSize();
-            eventQueue.accept(new Event(simParams.getTime() + latency, src.getID(), () -> messageArrives(msg), msg.isReoccuring()));
+            eventQueue.accept(new Event(time + transmissionTime + latency, src.getID(), () -> messageArrives(msg), msg.isReoccuring()));
+
+            if (transmissionTime > 0) {
+                busyUntil = time + transmissionTime;
+                eventQueue.accept(new Event(busyUntil, src.getID(), this::checkForRoomForMessage, true));
+            }
         } else {
             if (queue.isEmpty()) {
                 if (Log.isLoggingEnabled())
@@ -77,6 +177,97 @@ public class NetworkConnection {
         }
     }
 
+    /**
+     * Messages with lower tags are sent first. Equal tags are sent in the order they were queued.
+     */
+    private double getTag(Message msg) {
+        switch (scheduling) {
+            case EDF:
+                return msg.getDeadline();
+            case StrictPriority:
+                return LinkScheduling.getPriorityClass(msg.getProcess());
+            case WeightedFair:
+                int flow = msg.getProcess().ordinal();
+                double start = Math.max(virtualTime, lastFinishTag[flow]);
+                lastFinishTag[flow] = start + msg.getSize() / LinkScheduling.getWeight(msg.getProcess());
+                return lastFinishTag[flow];
+            default:
+                return 0;
+        }
+    }
+
+    /**
+     * Sends everything in the queue that fits on the wire as one frame. The frame takes the transmission time of its total size,
+     * and it is one event to send and one event to arrive no matter how many messages are in it.
+     */
+    private void sendFrame() {
+        int time = simParams.getTime();
+
+        if (time >= busyUntil) {
+            List<Message> frame = new ArrayList<>();
+            int frameSize = 0;
+            boolean reoccurring = true;
+
+            while (!queue.isEmpty() && (bandwidth - sizeOnTheWire) >= queue.peek().msg.getSize()) {
+                QueuedMessage next = queue.remove();
+                Message msg = next.msg;
+                queuedSize -= msg.getSize();
+                if (scheduling == LinkScheduling.WeightedFair)
+                    virtualTime = next.tag;
+
+                int queueingDelay = time - next.queuedTime;
+                messagesSent++;
+                sizeSent += msg.getSize();
+                totalQueueingDelay += queueingDelay;
+                maxQueueingDelay = Math.max(maxQueueingDelay, queueingDelay);
+                simParams.stats.addLinkTransmission(0, queueingDelay);
+
+                onTheWire.add(msg);
+                sizeOnTheWire += msg.getSize();
+                frameSize += msg.getSize();
+                reoccurring &= msg.isReoccuring();
+                frame.add(msg);
+            }
+
+            if (!frame.isEmpty()) {
+                int transmissionTime = getTransmissionTime(frameSize);
+                busyTime += transmissionTime;
+                framesSent++;
+                simParams.stats.addFrame(frame.size(), transmissionTime);
+
+                if (Log.isLoggingEnabled())
+                    log.log(src.getID() + ": Sending frame of " + frame.size() + " messages");
+
+                eventQueue.accept(new Event(time + transmissionTime + latency, src.getID(), () -> frameArrives(frame), reoccurring));
+
+                if (transmissionTime > 0) {
+                    busyUntil = time + transmissionTime;
+                    eventQueue.accept(new Event(busyUntil, src.getID(), this::checkForRoomForMessage, true));
+                }
+            }
+        }
+
+        //If messages are left there is already a check coming (when the link is free or when there is room on the wire)
+        if (queue.isEmpty())
+            flushScheduled = false;
+    }
+
+    /**
+     * @return the number of ticks it takes to put this much on the wire
+     */
+    private int getTransmissionTime(int size) {
+        if (rate <= 0)
+            return 0;
+        return (int) Math.ceil(size / rate);
+    }
+
+    /**
+     * @return the total size of the messages waiting to be sent and on the wire
+     */
+    public int getLoad() {
+        return queuedSize + sizeOnTheWire;
+    }
+
     public Server getSrc() {
         return src;
     }
@@ -87,4 +278,61 @@ public class NetworkConnection {
 
     public void abort(int transNum) {
     }
+
+    public int getMessagesSent() {
+        return messagesSent;
+    }
+
+    public long getSizeSent() {
+        return sizeSent;
+    }
+
+    /**
+     * @return the number of ticks this link spent putting messages on the wire
+     */
+    public long getBusyTime() {
+        return busyTime;
+    }
+
+    /**
+     * @return the fraction of the time this link was sending
+     */
+    public double getUtilization(int simulationTime) {
+        return simulationTime > 0 ? ((double) busyTime) / simulationTime : 0;
+    }
+
+    /**
+     * @return the average number of ticks a message waited in this link's queue
+     */
+    public double getAverageQueueingDelay() {
+        return messagesSent > 0 ? ((double) totalQueueingDelay) / messagesSent : 0;
+    }
+
+    public int getMaxQueueingDelay() {
+        return maxQueueingDelay;
+    }
+
+    public int getFramesSent() {
+        return framesSent;
+    }
+
+    private static class QueuedMessage implements Comparable<QueuedMessage> {
+        private final Message msg;
+        private final double tag;
+        private final long sequenceNumber;
+        private final int queuedTime;
+
+        private QueuedMessage(Message msg, double tag, long sequenceNumber, int queuedTime) {
+            this.msg = msg;
+            this.tag = tag;
+            this.sequenceNumber = sequenceNumber;
+            this.queuedTime = queuedTime;
+        }
+
+        @Override
+        public int compareTo(QueuedMessage o) {
+            int byTag = Double.compare(tag, o.tag);
+            return byTag != 0 ? byTag : Long.compare(sequenceNumber, o.sequenceNumber);
+        }
+    }
 }
\ No newline at end of file
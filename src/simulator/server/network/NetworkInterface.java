@@ -5,35 +5,49 @@ import simulator.SimParams;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
 import simulator.server.Server;
+import simulator.server.network.topology.SpanningTrees;
 import ui.Log;
 
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Arrays;
 import java.util.List;
-import java.util.Map;
 
 public class NetworkInterface {
     private final Log log;
 
-    private final Map<Integer, List<NetworkConnection>> routingTable = new HashMap<>();
+    /**
+     * The connections of this NIC. A connection's index in this list is its port number.
+     */
     private final List<NetworkConnection> connections = new ArrayList<>();
+
+    /**
+     * Destination server ID -> the ports that are on a shortest path to it. The first port is the one the DimensionOrdered policy uses.
+     * The arrays may be shared between NICs (and between destinations) so they must not be modified.
+     */
+    private final int[][] routingTable;
     private final Server server;
     private final int serverID;
     private final SimParams simParams;
 
+    /**
+     * The spanning trees multicasts follow, null if multicasts are sent as separate messages
+     */
+    private SpanningTrees spanningTrees;
+
     public NetworkInterface(Server server, SimParams simParams) {
         this.server = server;
         serverID = server.getID();
         this.simParams = simParams;
         log = new Log(ServerProcess.NetworkInterface, server.getID(), simParams.timeProvider, simParams.log);
+        routingTable = new int[simParams.numberOfServers][];
     }
 
+    /**
+     * Adds the connection as the next port, and routes messages for its destination directly over it
+     */
     public void addConnection(NetworkConnection connection) {
         connections.add(connection);
-
-        List<NetworkConnection> routes = new ArrayList<>();
-        routes.add(connection);
-        routingTable.put(connection.getDest().getID(), routes);
+        routingTable[connection.getDest().getID()] = new int[]{connections.size() - 1};
     }
 
     public void sendMessage(Message message) {
@@ -46,21 +60,152 @@ public class NetworkInterface {
         simParams.messageOverhead += message.getSize();
     }
 
+    /**
+     * Sends the message to all of its destinations. If multicast is on, one copy goes down each branch of this server's spanning tree
+     * that leads to a destination. Otherwise every destination gets its own message, in the order they are listed.
+     */
+    public void multicast(MulticastMessage message) {
+        if (spanningTrees == null) {
+            for (int destServerID : message.getDestServerIDs())
+                sendMessage(message.toUnicast(destServerID));
+            return;
+        }
+
+        //Sort the destinations in preorder so the ones under each branch are next to each other
+        int source = message.getSourceServerID();
+        int[] destServerIDs = message.getDestServerIDs();
+        int[] positions = new int[destServerIDs.length];
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = spanningTrees.getPosition(source, destServerIDs[i]);
+        Arrays.sort(positions);
+        for (int i = 0; i < positions.length; i++)
+            positions[i] = spanningTrees.getServerAt(source, positions[i]);
+
+        forwardMulticast(message.copyFor(positions));
+    }
+
+    /**
+     * Delivers the message here if this server is one of its destinations, then sends a copy to every child in the tree
+     * that has destinations under it. All the destinations of a copy are in the subtree of the server it reaches.
+     */
+    private void forwardMulticast(MulticastMessage message) {
+        int source = message.getSourceServerID();
+        int[] destServerIDs = message.getDestServerIDs();
+        int i = 0;
+
+        //This server comes before the rest of its subtree
+        if (destServerIDs.length > 0 && destServerIDs[0] == serverID) {
+            Message msg = message.toUnicast(serverID);
+            if (serverID == source)
+                sendMessage(msg);
+            else
+                receiveMessage(msg);
+            i++;
+        }
+
+        int child = spanningTrees.getPosition(source, serverID) + 1;
+        while (i < destServerIDs.length) {
+            int childID = spanningTrees.getServerAt(source, child);
+            int childEnd = spanningTrees.getSubtreeEnd(source, childID);
+
+            int j = i;
+            while (j < destServerIDs.length && spanningTrees.getPosition(source, destServerIDs[j]) < childEnd)
+                j++;
+
+            if (j > i) {
+                MulticastMessage copy = message.copyFor(Arrays.copyOfRange(destServerIDs, i, j));
+                if (Log.isLoggingEnabled())
+                    log.log("Multicasting to " + Arrays.toString(copy.getDestServerIDs()) + " through server " + childID);
+
+                connections.get(spanningTrees.getPortFromParent(source, childID)).sendMessage(copy);
+                simParams.messageOverhead += copy.getSize();
+                i = j;
+            }
+            child = childEnd;
+        }
+    }
+
     private NetworkConnection route(Message message) {
-        List<NetworkConnection> ncs = routingTable.get(message.getDestServerID());
-        return ncs.get((int) (simParams.rand.get() * ncs.size()));
+        int[] ports = routingTable[message.getDestServerID()];
+        if (ports == null)
+            throw new WTFException(serverID + ": No route to server " + message.getDestServerID());
+
+        switch (simParams.getRoutingPolicy()) {
+            case DimensionOrdered:
+                return connections.get(ports[0]);
+            case LeastLoaded:
+                return connections.get(getLeastLoadedPort(ports));
+            default:
+                return connections.get(ports[(int) (simParams.rand.get() * ports.length)]);
+        }
+    }
+
+    /**
+     * Picks the port with the least load. Ties are broken with the routing random stream so they do not change the rest of the simulation.
+     */
+    private int getLeastLoadedPort(int[] ports) {
+        int minLoad = Integer.MAX_VALUE;
+        int numTied = 0;
+        for (int port : ports) {
+            int load = connections.get(port).getLoad();
+            if (load < minLoad) {
+                minLoad = load;
+                numTied = 1;
+            } else if (load == minLoad) {
+                numTied++;
+            }
+        }
+
+        if (numTied == 1) {
+            for (int port : ports)
+                if (connections.get(port).getLoad() == minLoad)
+                    return port;
+        }
+
+        int pick = (int) (simParams.getRoutingRand().get() * numTied);
+        for (int port : ports) {
+            if (connections.get(port).getLoad() == minLoad && pick-- == 0)
+                return port;
+        }
+        throw new WTFException(serverID + ": Could not pick a least loaded port");
     }
 
     public NetworkConnection getConnection(int destServID) {
-        for (NetworkConnection nc : connections) {
-            if (nc.getDest().getID() == destServID)
-                return nc;
+        return connections.get(getPort(destServID));
+    }
+
+    /**
+     * @return the port of the connection that goes directly to the server
+     */
+    public int getPort(int destServID) {
+        for (int port = 0; port < connections.size(); port++) {
+            if (connections.get(port).getDest().getID() == destServID)
+                return port;
         }
         throw new WTFException(server.getID() + ": No connection to this server! : " + destServID);
     }
 
+    public void setSpanningTrees(SpanningTrees spanningTrees) {
+        this.spanningTrees = spanningTrees;
+    }
+
+    public List<NetworkConnection> getConnections() {
+        return connections;
+    }
+
     public void addRoutingTableEntry(int destServID, List<NetworkConnection> networkConnections) {
-        routingTable.put(destServID, networkConnections);
+        int[] ports = new int[networkConnections.size()];
+        for (int i = 0; i < ports.length; i++)
+            ports[i] = connections.indexOf(networkConnections.get(i));
+
+        routingTable[destServID] = ports;
+    }
+
+    /**
+     * @param ports the ports on a shortest path to the destination, the preferred one first. The array is not copied.
+     */
+    public void addRoutingTableEntry(int destServID, int[] ports) {
+        routingTable[destServID] = ports;
     }
 
 // Removing the trans's messages will prevent them from being sent to abort its cohorts
@@ -69,7 +214,15 @@ public class NetworkInterface {
 //        connections.forEach(conn -> conn.abort(transNum));
 //    }
 
+    /**
+     * Messages are stored and forwarded: a message is only sent on to the next hop once all of it has arrived here.
+     */
     public void receiveMessage(Message msg) {
+        if (msg instanceof MulticastMessage) {
+            forwardMulticast((MulticastMessage) msg);
+            return;
+        }
+
         //If the message arrived here but must be forwarded to another node
         if (msg.getDestServerID() != server.getID()) {
             sendMessage(msg);
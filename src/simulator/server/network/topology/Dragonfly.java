@@ -0,0 +1,41 @@
+package simulator.server.network.topology;
+
+import simulator.server.Server;
+
+import java.util.List;
+
+/**
+ * Dragonfly style groups. The servers are split into groups of about sqrt(numServers) servers.
+ * Every group is fully connected inside, and every pair of groups has one global link between them.
+ * The global link between groups x and y goes from server y % groupSize in x to server x % groupSize in y, which spreads the global links over the group.
+ */
+public class Dragonfly extends TopologyBuilder {
+
+    @Override
+    protected void connect(List<Server> s) {
+        int numServers = s.size();
+        int groupSize = getGroupSize(numServers);
+        int numGroups = numServers / groupSize;
+
+        //Local links
+        for (int g = 0; g < numGroups; g++)
+            for (int i = 0; i < groupSize; i++)
+                for (int j = i + 1; j < groupSize; j++)
+                    addConnection(s.get(g * groupSize + i), s.get(g * groupSize + j));
+
+        //Global links
+        for (int x = 0; x < numGroups; x++)
+            for (int y = x + 1; y < numGroups; y++)
+                addConnection(s.get(x * groupSize + y % groupSize), s.get(y * groupSize + x % groupSize));
+    }
+
+    /**
+     * The largest divisor of numServers that is at most sqrt(numServers)
+     */
+    static int getGroupSize(int numServers) {
+        for (int size = (int) Math.sqrt(numServers); size > 1; size--)
+            if (numServers % size == 0)
+                return size;
+        return 1;
+    }
+}
@@ -0,0 +1,30 @@
+package simulator.server.network.topology;
+
+import simulator.SimParams;
+import simulator.server.Server;
+
+import java.util.List;
+
+/**
+ * The simulator has no switches, so this is a fat tree made of servers:
+ * a binary tree where server i's parent is (i - 1) / 2, and the link above a server is as fat as the number of servers below it.
+ * So a link's bandwidth is the normal bandwidth times the size of the subtree it connects to the rest of the tree.
+ */
+public class FatTree extends TopologyBuilder {
+
+    @Override
+    protected void connect(List<Server> s) {
+        int numServers = s.size();
+
+        //Children always have higher IDs than their parents, so the subtree sizes can be added up from the leaves
+        int[] subtreeSize = new int[numServers];
+        for (int i = numServers - 1; i >= 0; i--) {
+            subtreeSize[i] += 1;
+            if (i > 0)
+                subtreeSize[(i - 1) / 2] += subtreeSize[i];
+        }
+
+        for (int i = 1; i < numServers; i++)
+            addConnection(s.get((i - 1) / 2), s.get(i), SimParams.Bandwidth * subtreeSize[i]);
+    }
+}
@@ -0,0 +1,33 @@
+package simulator.server.network.topology;
+
+import simulator.server.Server;
+import simulator.server.network.NetworkConnection;
+
+import java.util.List;
+
+/**
+ * Every server has a direct connection to every other server, so it works for any number of servers.
+ */
+public class FullyConnected extends TopologyBuilder {
+
+    @Override
+    protected void connect(List<Server> s) {
+        for (int i = 0; i < s.size(); i++) {
+            for (int j = i + 1; j < s.size(); j++) {
+                Server s1 = s.get(i);
+                Server s2 = s.get(j);
+
+                s1.getNIC().addConnection(new NetworkConnection(s1.getSimParams(), s1, s2));
+                s2.getNIC().addConnection(new NetworkConnection(s1.getSimParams(), s2, s1));
+            }
+        }
+    }
+
+    /**
+     * Adding a connection already routes its destination over it, and every destination is one hop away
+     */
+    @Override
+    protected void buildRoutingTables(List<Server> s) {
+        setPathLengths(1, 1);
+    }
+}
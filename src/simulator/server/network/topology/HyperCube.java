@@ -0,0 +1,63 @@
+package simulator.server.network.topology;
+
+import exceptions.WTFException;
+import simulator.server.Server;
+import simulator.server.network.NetworkConnection;
+import simulator.server.network.NetworkInterface;
+
+import java.util.List;
+
+/**
+ * Connects 2^d servers as a d dimensional hypercube. Server i is connected to i ^ (1 << k) for every dimension k.
+ * Every NIC gets its connections in dimension order, so on every server port k is the link across dimension k.
+ */
+public class HyperCube extends TopologyBuilder {
+
+    @Override
+    protected void connect(List<Server> s) {
+        int numServers = s.size();
+        if (numServers < 2 || Integer.bitCount(numServers) != 1)
+            throw new WTFException("A HyperCube needs a power of 2 number of servers, it was " + numServers);
+
+        int dimensions = Integer.numberOfTrailingZeros(numServers);
+
+        for (Server server : s) {
+            for (int k = 0; k < dimensions; k++) {
+                Server neighbour = s.get(server.getID() ^ (1 << k));
+                server.getNIC().addConnection(new NetworkConnection(server.getSimParams(), server, neighbour));
+            }
+        }
+    }
+
+    /**
+     * The shortest paths from i to dest are the ones that cross a dimension where i and dest differ.
+     * Since port k is dimension k on every server, the ports only depend on i ^ dest, so one array per difference is shared by every NIC.
+     * The ports are in increasing dimension order, so the first one is the e-cube route.
+     */
+    @Override
+    protected void buildRoutingTables(List<Server> s) {
+        int numServers = s.size();
+        int dimensions = Integer.numberOfTrailingZeros(numServers);
+
+        int[][] portsForDifference = new int[numServers][];
+        for (int diff = 1; diff < numServers; diff++) {
+            int[] ports = new int[Integer.bitCount(diff)];
+            int next = 0;
+            for (int k = 0; k < dimensions; k++)
+                if ((diff & (1 << k)) != 0)
+                    ports[next++] = k;
+
+            portsForDifference[diff] = ports;
+        }
+
+        for (Server server : s) {
+            NetworkInterface nic = server.getNIC();
+            for (int dest = 0; dest < numServers; dest++)
+                if (dest != server.getID())
+                    nic.addRoutingTableEntry(dest, portsForDifference[server.getID() ^ dest]);
+        }
+
+        // On average half the bits differ
+        setPathLengths(dimensions, (dimensions / 2.0) * numServers / (numServers - 1));
+    }
+}
@@ -0,0 +1,112 @@
+package simulator.server.network.topology;
+
+import exceptions.WTFException;
+import simulator.server.Server;
+
+import java.util.*;
+
+/**
+ * A random graph where every server has the same number of links.
+ * It uses the pairing model: every server gets DEGREE points and random pairs of points are joined,
+ * skipping pairs that would make a loop or a second link between the same servers (Steger and Wormald).
+ * If it gets stuck, or the graph is not connected, it starts over.
+ * The graph only depends on the SEED so every simulation with the same SEED gets the same network.
+ */
+public class RandomRegular extends TopologyBuilder {
+
+    private static final int DEGREE = 4;
+    private static final int MAX_ATTEMPTS = 1000;
+
+    private final long SEED;
+
+    public RandomRegular(long SEED) {
+        this.SEED = SEED;
+    }
+
+    @Override
+    protected void connect(List<Server> s) {
+        int numServers = s.size();
+        int degree = Math.min(DEGREE, numServers - 1);
+        if ((numServers * degree) % 2 != 0)
+            degree--;
+
+        Random rand = new Random(SEED);
+
+        for (int attempt = 0; attempt < MAX_ATTEMPTS; attempt++) {
+            List<Set<Integer>> adjacency = pair(numServers, degree, rand);
+            if (adjacency == null || !isConnected(adjacency))
+                continue;
+
+            for (int i = 0; i < numServers; i++) {
+                List<Integer> neighbours = new ArrayList<>(adjacency.get(i));
+                Collections.sort(neighbours);
+                for (int j : neighbours)
+                    if (i < j)
+                        addConnection(s.get(i), s.get(j));
+            }
+            return;
+        }
+
+        throw new WTFException("Could not make a connected random " + degree + "-regular graph with " + numServers + " servers");
+    }
+
+    /**
+     * @return the adjacency sets, or null if the pairing got stuck
+     */
+    private static List<Set<Integer>> pair(int numServers, int degree, Random rand) {
+        List<Set<Integer>> adjacency = new ArrayList<>();
+        for (int i = 0; i < numServers; i++)
+            adjacency.add(new HashSet<>());
+
+        int[] points = new int[numServers * degree];
+        for (int i = 0; i < points.length; i++)
+            points[i] = i / degree;
+
+        int remaining = points.length;
+        while (remaining > 0) {
+            boolean paired = false;
+
+            for (int tries = 0; tries < 100 && !paired; tries++) {
+                int a = rand.nextInt(remaining);
+                int b = rand.nextInt(remaining);
+                int u = points[a], v = points[b];
+
+                if (u == v || adjacency.get(u).contains(v))
+                    continue;
+
+                adjacency.get(u).add(v);
+                adjacency.get(v).add(u);
+
+                //Remove both points by moving the last points into their place
+                int hi = Math.max(a, b), lo = Math.min(a, b);
+                points[hi] = points[--remaining];
+                points[lo] = points[--remaining];
+                paired = true;
+            }
+
+            if (!paired)
+                return null;
+        }
+
+        return adjacency;
+    }
+
+    private static boolean isConnected(List<Set<Integer>> adjacency) {
+        boolean[] seen = new boolean[adjacency.size()];
+        Deque<Integer> stack = new ArrayDeque<>();
+        stack.push(0);
+        seen[0] = true;
+        int count = 1;
+
+        while (!stack.isEmpty()) {
+            for (int w : adjacency.get(stack.pop())) {
+                if (!seen[w]) {
+                    seen[w] = true;
+                    count++;
+                    stack.push(w);
+                }
+            }
+        }
+        return count == adjacency.size();
+    }
+}
@@ -0,0 +1,17 @@
+package simulator.server.network.topology;
+
+import simulator.server.Server;
+
+import java.util.List;
+
+/**
+ * Server i is connected to i - 1 and i + 1 (wrapping around)
+ */
+public class Ring extends TopologyBuilder {
+
+    @Override
+    protected void connect(List<Server> s) {
+        for (int i = 0; i < s.size(); i++)
+            addConnection(s.get(i), s.get((i + 1) % s.size()));
+    }
+}
@@ -0,0 +1,147 @@
+package simulator.server.network.topology;
+
+import exceptions.WTFException;
+import simulator.server.Server;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * One breadth first spanning tree per source server, used to multicast.
+ * A message multicast from a source goes down that source's tree, so it crosses every link in the tree at most once
+ * and still reaches every server over a shortest path.
+ * The trees are stored in preorder, so the servers in the subtree of v are the ones at positions position[v] to subtreeEnd[v] - 1.
+ */
+public class SpanningTrees {
+
+    /**
+     * source -> preorder position -> server ID
+     */
+    private final int[][] order;
+
+    /**
+     * source -> server ID -> its preorder position
+     */
+    private final int[][] position;
+
+    /**
+     * source -> server ID -> the preorder position just after its subtree
+     */
+    private final int[][] subtreeEnd;
+
+    /**
+     * source -> server ID -> the port on its parent that leads to it
+     */
+    private final int[][] portFromParent;
+
+    public SpanningTrees(List<Server> servers) {
+        int numServers = servers.size();
+        int[][] neighbours = TopologyBuilder.getNeighbours(servers);
+
+        order = new int[numServers][];
+        position = new int[numServers][];
+        subtreeEnd = new int[numServers][];
+        portFromParent = new int[numServers][];
+
+        int[] parent = new int[numServers];
+        int[] queue = new int[numServers];
+        int[] firstChild = new int[numServers];
+        int[] nextSibling = new int[numServers];
+        int[] lastChild = new int[numServers];
+        int[] stack = new int[numServers];
+
+        for (int source = 0; source < numServers; source++) {
+            int[] fromParent = new int[numServers];
+
+            //BFS from the source, neighbours in port order so the trees are the same every run
+            Arrays.fill(parent, -2);
+            Arrays.fill(firstChild, -1);
+            Arrays.fill(nextSibling, -1);
+            parent[source] = -1;
+            fromParent[source] = -1;
+            queue[0] = source;
+            int head = 0, tail = 1;
+
+            while (head < tail) {
+                int u = queue[head++];
+                int[] uNeighbours = neighbours[u];
+                for (int port = 0; port < uNeighbours.length; port++) {
+                    int w = uNeighbours[port];
+                    if (parent[w] == -2) {
+                        parent[w] = u;
+                        fromParent[w] = port;
+                        queue[tail++] = w;
+
+                        if (firstChild[u] == -1)
+                            firstChild[u] = w;
+                        else
+                            nextSibling[lastChild[u]] = w;
+                        lastChild[u] = w;
+                    }
+                }
+            }
+
+            if (tail != numServers)
+                throw new WTFException("Server " + source + " can only reach " + tail + " of the " + numServers + " servers");
+
+            //Number the tree in preorder
+            int[] sourceOrder = new int[numServers];
+            int[] sourcePosition = new int[numServers];
+            int[] sourceEnd = new int[numServers];
+            int next = 0;
+            int top = 0;
+            stack[top++] = source;
+
+            while (top > 0) {
+                int v = stack[--top];
+                sourcePosition[v] = next;
+                sourceOrder[next++] = v;
+
+                //Push the children backwards so they come off the stack in BFS order
+                int numChildren = 0;
+                for (int c = firstChild[v]; c != -1; c = nextSibling[c])
+                    numChildren++;
+                int i = top + numChildren;
+                for (int c = firstChild[v]; c != -1; c = nextSibling[c])
+                    stack[--i] = c;
+                top += numChildren;
+            }
+
+            //A subtree ends where the next server that is not in it starts. Children come after their parent in preorder, so go backwards.
+            for (int p = numServers - 1; p >= 0; p--) {
+                int v = sourceOrder[p];
+                int end = p + 1;
+                for (int c = firstChild[v]; c != -1; c = nextSibling[c])
+                    end = Math.max(end, sourceEnd[c]);
+                sourceEnd[v] = end;
+            }
+
+            order[source] = sourceOrder;
+            position[source] = sourcePosition;
+            subtreeEnd[source] = sourceEnd;
+            portFromParent[source] = fromParent;
+        }
+    }
+
+    /**
+     * @return the position of the server in the source's tree. Sorting destinations by this keeps every subtree's destinations together.
+     */
+    public int getPosition(int source, int serverID) {
+        return position[source][serverID];
+    }
+
+    public int getSubtreeEnd(int source, int serverID) {
+        return subtreeEnd[source][serverID];
+    }
+
+    public int getServerAt(int source, int position) {
+        return order[source][position];
+    }
+
+    /**
+     * @return the port on the server's parent (in the source's tree) that leads to the server
+     */
+    public int getPortFromParent(int source, int serverID) {
+        return portFromParent[source][serverID];
+    }
+}
@@ -0,0 +1,191 @@
+package simulator.server.network.topology;
+
+import exceptions.WTFException;
+import simulator.SimParams;
+import simulator.enums.Topology;
+import simulator.server.Server;
+import simulator.server.network.NetworkConnection;
+import simulator.server.network.NetworkInterface;
+
+import java.util.*;
+
+/**
+ * Wires the servers together and fills in every NIC's routing table.
+ * Subclasses only add the links. By default the routing tables come from a breadth first search from every server,
+ * so every NIC gets all the ports that are on a shortest path (equal cost multipath) to every destination.
+ */
+public abstract class TopologyBuilder {
+
+    private int diameter;
+    private double averageHops;
+
+    public static TopologyBuilder get(Topology topology, long SEED) {
+        switch (topology) {
+            case HyperCube:
+                return new HyperCube();
+            case FullyConnected:
+                return new FullyConnected();
+            case Ring:
+                return new Ring();
+            case Torus2D:
+                return new Torus(2);
+            case Torus3D:
+                return new Torus(3);
+            case FatTree:
+                return new FatTree();
+            case Dragonfly:
+                return new Dragonfly();
+            case RandomRegular:
+                return new RandomRegular(SEED);
+        }
+        throw new WTFException("No builder for topology " + topology);
+    }
+
+    public void setup(List<Server> servers) {
+        connect(servers);
+        buildRoutingTables(servers);
+    }
+
+    /**
+     * Adds the links between the servers
+     */
+    protected abstract void connect(List<Server> servers);
+
+    /**
+     * All pairs shortest paths with one BFS per destination.
+     * A port of v is on a shortest path to dest if the server at the other end is one hop closer to dest.
+     * Ports are listed in port order, so the first one is the same every time (it is what the DimensionOrdered policy uses).
+     */
+    protected void buildRoutingTables(List<Server> servers) {
+        int numServers = servers.size();
+        int[][] neighbours = getNeighbours(servers);
+
+        //Servers with few ports share the port arrays between destinations, keyed by the bitmask of the ports
+        List<Map<Long, int[]>> sharedPorts = new ArrayList<>();
+        for (int i = 0; i < numServers; i++)
+            sharedPorts.add(new HashMap<>());
+
+        int[] dist = new int[numServers];
+        int[] queue = new int[numServers];
+        long totalHops = 0;
+        diameter = 0;
+
+        for (int dest = 0; dest < numServers; dest++) {
+            bfs(neighbours, dest, dist, queue);
+
+            for (int v = 0; v < numServers; v++) {
+                if (v == dest)
+                    continue;
+                if (dist[v] == -1)
+                    throw new WTFException("Server " + v + " can not reach server " + dest);
+
+                diameter = Math.max(diameter, dist[v]);
+                totalHops += dist[v];
+
+                int[] vNeighbours = neighbours[v];
+                int numPorts = 0;
+                long mask = 0;
+                int[] ports = new int[vNeighbours.length];
+                for (int port = 0; port < vNeighbours.length; port++) {
+                    if (dist[vNeighbours[port]] == dist[v] - 1) {
+                        ports[numPorts++] = port;
+                        if (port < 64)
+                            mask |= 1L << port;
+                    }
+                }
+
+                int[] foundPorts = ports;
+                int n = numPorts;
+                if (vNeighbours.length <= 64)
+                    ports = sharedPorts.get(v).computeIfAbsent(mask, m -> Arrays.copyOf(foundPorts, n));
+                else
+                    ports = Arrays.copyOf(foundPorts, n);
+
+                servers.get(v).getNIC().addRoutingTableEntry(dest, ports);
+            }
+        }
+
+        averageHops = numServers > 1 ? ((double) totalHops) / ((long) numServers * (numServers - 1)) : 0;
+    }
+
+    /**
+     * @return server ID -> the server IDs at the other end of each of its ports, in port order
+     */
+    protected static int[][] getNeighbours(List<Server> servers) {
+        int[][] neighbours = new int[servers.size()][];
+        for (Server server : servers) {
+            List<NetworkConnection> connections = server.getNIC().getConnections();
+            int[] ids = new int[connections.size()];
+            for (int port = 0; port < ids.length; port++)
+                ids[port] = connections.get(port).getDest().getID();
+            neighbours[server.getID()] = ids;
+        }
+        return neighbours;
+    }
+
+    /**
+     * Fills dist with the number of hops from every server to the source, -1 if it can't be reached
+     */
+    protected static void bfs(int[][] neighbours, int source, int[] dist, int[] queue) {
+        Arrays.fill(dist, -1);
+        dist[source] = 0;
+        queue[0] = source;
+        int head = 0, tail = 1;
+
+        while (head < tail) {
+            int u = queue[head++];
+            for (int w : neighbours[u]) {
+                if (dist[w] == -1) {
+                    dist[w] = dist[u] + 1;
+                    queue[tail++] = w;
+                }
+            }
+        }
+    }
+
+    /**
+     * Adds a link in both directions. Links that already exist (or would be to the same server) are ignored,
+     * which keeps small rings and tori from getting duplicate links.
+     */
+    protected static void addConnection(Server s1, Server s2) {
+        addConnection(s1, s2, SimParams.Bandwidth);
+    }
+
+    protected static void addConnection(Server s1, Server s2, int bandwidth) {
+        if (s1 == s2 || isConnected(s1, s2))
+            return;
+
+        NetworkConnection oneToTwo = new NetworkConnection(s1.getSimParams(), s1, s2, bandwidth);
+        NetworkConnection twoToOne = new NetworkConnection(s1.getSimParams(), s2, s1, bandwidth);
+
+        s1.getNIC().addConnection(oneToTwo);
+        s2.getNIC().addConnection(twoToOne);
+    }
+
+    protected static boolean isConnected(Server s1, Server s2) {
+        NetworkInterface nic = s1.getNIC();
+        for (NetworkConnection nc : nic.getConnections())
+            if (nc.getDest() == s2)
+                return true;
+        return false;
+    }
+
+    /**
+     * The longest shortest path, in hops. Only set once the routing tables are built.
+     */
+    public int getDiameter() {
+        return diameter;
+    }
+
+    /**
+     * The average shortest path over all pairs of servers, in hops
+     */
+    public double getAverageHops() {
+        return averageHops;
+    }
+
+    protected void setPathLengths(int diameter, double averageHops) {
+        this.diameter = diameter;
+        this.averageHops = averageHops;
+    }
+}
@@ -0,0 +1,60 @@
+package simulator.server.network.topology;
+
+import simulator.server.Server;
+
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A 2D or 3D torus. The servers are laid out on a grid that is as close to square (or cubic) as the number of servers allows,
+ * and every server is connected to the next and previous server in each dimension, wrapping around at the edges.
+ * A dimension of size 1 has no links and a dimension of size 2 has one link instead of two.
+ */
+public class Torus extends TopologyBuilder {
+
+    private final int dimensions;
+
+    public Torus(int dimensions) {
+        this.dimensions = dimensions;
+    }
+
+    @Override
+    protected void connect(List<Server> s) {
+        int[] sizes = getSizes(s.size(), dimensions);
+
+        for (int i = 0; i < s.size(); i++) {
+            int stride = 1;
+            for (int size : sizes) {
+                int coordinate = (i / stride) % size;
+                int next = i + (((coordinate + 1) % size) - coordinate) * stride;
+                addConnection(s.get(i), s.get(next));
+                stride *= size;
+            }
+        }
+    }
+
+    /**
+     * Splits numServers into the given number of factors, each as close as possible to the dimensions-th root of what is left
+     */
+    static int[] getSizes(int numServers, int dimensions) {
+        int[] sizes = new int[dimensions];
+        int remaining = numServers;
+
+        for (int d = 0; d < dimensions - 1; d++) {
+            int target = (int) Math.floor(Math.pow(remaining, 1.0 / (dimensions - d)) + 1e-9);
+            int size = 1;
+            for (int f = Math.max(target, 1); f >= 1; f--) {
+                if (remaining % f == 0) {
+                    size = f;
+                    break;
+                }
+            }
+            sizes[d] = size;
+            remaining /= size;
+        }
+        sizes[dimensions - 1] = remaining;
+
+        Arrays.sort(sizes);
+        return sizes;
+    }
+}
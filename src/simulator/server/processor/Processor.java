@@ -20,6 +20,11 @@ public class Processor {
 
     private Queue<ProcessorJob> processingJobs = new PriorityQueue<>();
 
+    /**
+     * Moving average of how long jobs wait in the queue before they start
+     */
+    private double averageQueueingDelay;
+
     public Processor(int serverID, SimParams simParams) {
         this.serverID = serverID;
 
@@ -30,6 +35,7 @@ public class Processor {
     private void tryToStartJob() {
         if (activeProcessorJob == null && !processingJobs.isEmpty()) {
             activeProcessorJob = processingJobs.remove();
+            averageQueueingDelay += SimParams.QUEUEING_DELAY_WEIGHT * (simParams.getTime() - activeProcessorJob.getQueuedTime() - averageQueueingDelay);
 
             if (Log.isLoggingEnabled())
                 log.log(activeProcessorJob.getTransID(), "Processing started for page " + activeProcessorJob.getPageNum());
@@ -53,10 +59,15 @@ public class Processor {
         if (Log.isLoggingEnabled())
             log.log(pj.getTransID(), "Processing job added for page " + pj.getPageNum());
 
+        pj.setQueuedTime(simParams.getTime());
         processingJobs.add(pj);
         simParams.eventQueue.accept(new Event(simParams.getTime() + 1, serverID, this::tryToStartJob));
     }
 
+    public double getAverageQueueingDelay() {
+        return averageQueueingDelay;
+    }
+
     public void abort(int transNum) {
         if (Log.isLoggingEnabled())
             log.log(transNum, "Aborting processing jobs");
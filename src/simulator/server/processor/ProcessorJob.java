@@ -8,6 +8,7 @@ public class ProcessorJob implements Comparable<ProcessorJob> {
     private final int transID, deadline, pageNum;
 
     private Event activeEvent;
+    private int queuedTime;
     private Consumer<Integer> completedListener;
 
     public ProcessorJob(int transID, int deadline, int pageNum, Consumer<Integer> completedListener) {
@@ -37,6 +38,17 @@ public class ProcessorJob implements Comparable<ProcessorJob> {
         this.activeEvent = activeEvent;
     }
 
+    /**
+     * @return the time the job was added to the queue
+     */
+    public int getQueuedTime() {
+        return queuedTime;
+    }
+
+    public void setQueuedTime(int queuedTime) {
+        this.queuedTime = queuedTime;
+    }
+
     @Override
     public int compareTo(ProcessorJob o) {
         if (deadline < o.deadline)
@@ -0,0 +1,68 @@
+package simulator.server.transactionManager;
+
+/**
+ * Adjusts how many transactions a server lets run at once, from the lock conflicts it sees (AIMD).
+ * <p>
+ * Every control interval the limit goes up by one if transactions had to wait to be started and the conflict ratio
+ * (see LockManager.getConflictRatio) is below the critical one. Above it the server is past the point where more
+ * concurrency only causes lock waits, deadlocks and aborts, so the limit is cut.
+ */
+public class AdmissionController {
+
+    /**
+     * Ticks between adjustments
+     */
+    public static final int CONTROL_INTERVAL = 100;
+
+    /**
+     * Past this conflict ratio throughput drops as more transactions are let in
+     */
+    private static final double CRITICAL_CONFLICT_RATIO = 1.3;
+
+    /**
+     * The limit can go up to this many times the one it started from
+     */
+    private static final int MAX_LIMIT_FACTOR = 4;
+    private static final double DECREASE_FACTOR = 0.75;
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+    private double limit;
+    private boolean saturated;
+
+    /**
+     * @param initialLimit the limit to start from (MaxActiveTransactions)
+     */
+    public AdmissionController(int initialLimit) {
+        limit = initialLimit;
+        maxLimit = initialLimit * MAX_LIMIT_FACTOR;
+    }
+
+    public int getLimit() {
+        return (int) limit;
+    }
+
+    /**
+     * A transaction could not be started because the limit was reached
+     */
+    public void saturated() {
+        saturated = true;
+    }
+
+    /**
+     * Adjusts the limit from the conflict ratio and whether the limit held transactions back since the last adjustment
+     *
+     * @return how much the limit went up by, negative if it went down
+     */
+    public int adjust(double conflictRatio) {
+        int oldLimit = getLimit();
+
+        if (conflictRatio > CRITICAL_CONFLICT_RATIO)
+            limit = Math.max(MIN_LIMIT, limit * DECREASE_FACTOR);
+        else if (saturated)
+            limit = Math.min(maxLimit, limit + 1);
+
+        saturated = false;
+        return getLimit() - oldLimit;
+    }
+}
@@ -0,0 +1,130 @@
+package simulator.server.transactionManager;
+
+import simulator.protocols.priority.PriorityProtocol;
+
+import java.util.*;
+
+/**
+ * The transactions waiting to be started, highest priority first.
+ * If the priority protocol has a comparator this is a heap indexed by transaction ID, so finding the next transaction
+ * and removing any transaction are O(log n). Transactions with the same priority come out in the order they were added,
+ * the same one the protocol would pick from a list.
+ * Protocols without a fixed order (RandomPriority) are asked to pick from a list instead.
+ */
+public class AdmissionQueue {
+
+    private static class Entry {
+        private final Transaction transaction;
+        private final long seq;
+        private int index;
+
+        private Entry(Transaction transaction, long seq) {
+            this.transaction = transaction;
+            this.seq = seq;
+        }
+    }
+
+    private final PriorityProtocol pp;
+    private final Comparator<Transaction> comparator;
+
+    private final List<Entry> heap = new ArrayList<>();
+    private final Map<Integer, Entry> entries = new HashMap<>();
+    private long nextSeq;
+
+    private final List<Transaction> list = new ArrayList<>();
+
+    public AdmissionQueue(PriorityProtocol pp) {
+        this.pp = pp;
+        comparator = pp.getTransComparator();
+    }
+
+    public void add(Transaction t) {
+        if (comparator == null) {
+            list.add(t);
+            return;
+        }
+
+        Entry entry = new Entry(t, nextSeq++);
+        entries.put(t.getID(), entry);
+        entry.index = heap.size();
+        heap.add(entry);
+        siftUp(entry.index);
+    }
+
+    /**
+     * @return the highest priority transaction, null if there are none
+     */
+    public Transaction peek() {
+        if (comparator == null)
+            return list.isEmpty() ? null : pp.getHighestPriorityTrans(list);
+
+        return heap.isEmpty() ? null : heap.get(0).transaction;
+    }
+
+    /**
+     * Removes the transaction with this ID if it is queued
+     */
+    public void remove(Transaction t) {
+        if (comparator == null) {
+            list.remove(t);
+            return;
+        }
+
+        Entry entry = entries.remove(t.getID());
+        if (entry == null)
+            return;
+
+        int i = entry.index;
+        Entry last = heap.remove(heap.size() - 1);
+        if (last != entry) {
+            heap.set(i, last);
+            last.index = i;
+            siftDown(i);
+            siftUp(last.index);
+        }
+    }
+
+    public int size() {
+        return comparator == null ? list.size() : heap.size();
+    }
+
+    private boolean before(Entry a, Entry b) {
+        int c = comparator.compare(a.transaction, b.transaction);
+        return c < 0 || (c == 0 && a.seq < b.seq);
+    }
+
+    private void siftUp(int i) {
+        Entry entry = heap.get(i);
+        while (i > 0) {
+            int parent = (i - 1) / 2;
+            Entry p = heap.get(parent);
+            if (!before(entry, p))
+                break;
+            heap.set(i, p);
+            p.index = i;
+            i = parent;
+        }
+        heap.set(i, entry);
+        entry.index = i;
+    }
+
+    private void siftDown(int i) {
+        int size = heap.size();
+        Entry entry = heap.get(i);
+        while (true) {
+            int child = 2 * i + 1;
+            if (child >= size)
+                break;
+            if (child + 1 < size && before(heap.get(child + 1), heap.get(child)))
+                child++;
+            Entry c = heap.get(child);
+            if (!before(c, entry))
+                break;
+            heap.set(i, c);
+            c.index = i;
+            i = child;
+        }
+        heap.set(i, entry);
+        entry.index = i;
+    }
+}
@@ -4,6 +4,11 @@ public class CohortTransaction extends Transaction {
 
     private final int masterServerID;
 
+    /**
+     * The master has been told this cohort can't finish before the deadline
+     */
+    private boolean masterToldInfeasible;
+
     public CohortTransaction(int ID, int serverID, int deadLine, int masterServerID) {
         super(ID, serverID, deadLine);
         this.masterServerID = masterServerID;
@@ -17,4 +22,18 @@ public class CohortTransaction extends Transaction {
     public int getMasterServerID() {
         return masterServerID;
     }
+
+    @Override
+    public void prepareToStart() {
+        super.prepareToStart();
+        masterToldInfeasible = false;
+    }
+
+    public boolean hasToldMasterInfeasible() {
+        return masterToldInfeasible;
+    }
+
+    public void setToldMasterInfeasible() {
+        masterToldInfeasible = true;
+    }
 }
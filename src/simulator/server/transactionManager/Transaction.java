@@ -4,6 +4,7 @@ import exceptions.WTFException;
 import simulator.protocols.priority.PriorityProtocol;
 
 import java.util.*;
+import java.util.stream.Collectors;
 
 public class Transaction {
 
@@ -21,7 +22,16 @@ public class Transaction {
     private final List<Integer> readPageNums = new ArrayList<>();
     private final List<Integer> writePageNums = new ArrayList<>();
 
-    private final List<Integer> lockedReadPages = new ArrayList<>();
+    /*
+        The pages this transaction works on (on this server) sorted, set up by prepareToStart.
+        Each stage keeps a bit per page index and a count of the work remaining, so checking if a stage is done is O(1).
+        Processed pages are indexed with the read pages first, then the write pages.
+     */
+    private int[] readPageIndex = new int[0];
+    private int[] writePageIndex = new int[0];
+    private int[] allWritePageIndex = new int[0];
+
+    private final BitSet lockedReadPages = new BitSet();
 
     /**
      * write page num -> a list of servers with that page
@@ -29,20 +39,39 @@ public class Transaction {
     private final Map<Integer, List<Integer>> writePageNumsToServersWithPage = new HashMap<>();
 
     /**
-     * write page num -> a list of servers where a lock has been acquired on that page
+     * write page index -> the servers where a lock has been acquired on that page
+     */
+    private BitSet[] writeLocksAcquired = new BitSet[0];
+
+    /**
+     * Read locks not acquired yet, plus write locks not acquired yet on each server with the page.
+     * A write page counts as one until it is known which servers have it.
+     */
+    private int remainingLocks;
+
+    /*
+        With update locks the write pages are locked in U mode and converted to X once the pages are processed.
+        writeLocksConverted is indexed like writeLocksAcquired.
      */
-    private final Map<Integer, List<Integer>> pageNumsToServerIDLocksAcquired = new HashMap<>();
+    private boolean usesUpdateLocks;
+    private boolean convertingLocks;
+    private BitSet[] writeLocksConverted = new BitSet[0];
+    private int remainingConversions;
 
-    private final List<Integer> processedPages = new ArrayList<>();
+    private final BitSet processedPages = new BitSet();
+    private int remainingPagesToProcess;
 
     //The values stored in here are the server ID's where the cohorts are.
     private final List<Integer> cohortServers = new ArrayList<>();
-    private final List<Integer> readyToCommitCohorts = new ArrayList<>();
+    private final BitSet cohortServerSet = new BitSet();
+    private final BitSet readyToCommitCohorts = new BitSet();
+    private int remainingCohortsToBeReady;
     private final List<Integer> committedCohorts = new ArrayList<>();
 
     private boolean committed;
 
-    private final List<Integer> pagesWritten = new ArrayList<>();
+    private final BitSet pagesWritten = new BitSet();
+    private int remainingWrites;
 
     //Stores the serverID
     private List<Integer> completedCohorts = new ArrayList<>();
@@ -61,62 +90,132 @@ public class Transaction {
     // **  Stage 1  - Acquire Locks ** //
 
     public void lockAcquired(int pageNum, int serverID) {
-        if (writePageNums.contains(pageNum)) {
-            pageNumsToServerIDLocksAcquired.get(pageNum).add(serverID);
-        } else if (readPageNums.contains(pageNum)) {
-            lockedReadPages.add(pageNum);
+        int writeIndex = Arrays.binarySearch(writePageIndex, pageNum);
+        if (writeIndex >= 0) {
+            BitSet acquired = writeLocksAcquired[writeIndex];
+            if (acquired.get(serverID))
+                return;
+            acquired.set(serverID);
+
+            List<Integer> serversWithPage = writePageNumsToServersWithPage.get(pageNum);
+            if (serversWithPage != null && serversWithPage.contains(serverID))
+                remainingLocks--;
+            return;
+        }
+
+        int readIndex = Arrays.binarySearch(readPageIndex, pageNum);
+        if (readIndex >= 0) {
+            if (!lockedReadPages.get(readIndex)) {
+                lockedReadPages.set(readIndex);
+                remainingLocks--;
+            }
         } else
             throw new WTFException("Transaction " + ID + ": Acquired a lock for a page I don't have! pageNum: " + pageNum + " on server: " + serverID);
     }
 
+    /**
+     * Sets the servers a write lock has to be acquired on for the page
+     */
+    public void setServersWithPage(int pageNum, List<Integer> serversWithPage) {
+        List<Integer> oldServers = writePageNumsToServersWithPage.put(pageNum, serversWithPage);
 
-    // **  Stage 2  - ServerProcess Pages ** //
+        int writeIndex = Arrays.binarySearch(writePageIndex, pageNum);
+        if (writeIndex < 0)
+            return;
 
-    public void pageProcessed(int pageNum) {
-        processedPages.add(pageNum);
+        BitSet acquired = writeLocksAcquired[writeIndex];
+        remainingLocks -= oldServers == null ? 1 : countNotAcquired(oldServers, acquired);
+        remainingLocks += countNotAcquired(serversWithPage, acquired);
     }
 
+    private static int countNotAcquired(List<Integer> servers, BitSet acquired) {
+        int count = 0;
+        for (int serverID : servers)
+            if (!acquired.get(serverID))
+                count++;
+        return count;
+    }
 
-    // **  Stage 3  - Commit ** //
 
-    public boolean isReadyToCommit() {
-        boolean allProcessingDone = processedPages.containsAll(readPageNums) && processedPages.containsAll(writePageNums);
+    public void setUsesUpdateLocks(boolean usesUpdateLocks) {
+        this.usesUpdateLocks = usesUpdateLocks;
+    }
 
-        boolean allLocksAcquired = allLocksAcquired();
+    // **  Stage 2  - ServerProcess Pages ** //
 
-        boolean allCohortsAreReadyToCommit = allCohortsAreReadyToCommit();
+    public void pageProcessed(int pageNum) {
+        int index = Arrays.binarySearch(readPageIndex, pageNum);
+        if (index < 0) {
+            index = Arrays.binarySearch(writePageIndex, pageNum);
+            if (index < 0)
+                return;
+            index += readPageIndex.length;
+        }
 
-        return allProcessingDone && allLocksAcquired && allCohortsAreReadyToCommit;
+        if (!processedPages.get(index)) {
+            processedPages.set(index);
+            remainingPagesToProcess--;
+        }
     }
 
-    private boolean allCohortsAreReadyToCommit() {
-        return readyToCommitCohorts.containsAll(cohortServers);
+
+    // **  Stage 3  - Commit ** //
+
+    public int getNumPagesToProcess() {
+        return remainingPagesToProcess;
     }
 
-    private boolean allLocksAcquired() {
-        boolean allFound = true;
+    public boolean isReadyToCommit() {
+        return remainingPagesToProcess == 0 && remainingLocks == 0 && remainingCohortsToBeReady == 0
+                && (!usesUpdateLocks || (convertingLocks && remainingConversions == 0));
+    }
 
-        for (int writePageNum : writePageNums) {
-            List<Integer> serversWithThisPage = writePageNumsToServersWithPage.get(writePageNum);
-            List<Integer> serversWithThisLockAcquired = pageNumsToServerIDLocksAcquired.get(writePageNum);
+    /**
+     * @return true if the write locks are update locks, they have all been acquired and the pages processed, so they can be converted
+     */
+    public boolean isReadyToConvertLocks() {
+        return usesUpdateLocks && !convertingLocks && remainingPagesToProcess == 0 && remainingLocks == 0;
+    }
 
-            allFound &= serversWithThisLockAcquired.containsAll(serversWithThisPage);
+    /**
+     * Starts waiting for the write locks to be converted on every server with the page
+     */
+    public void startLockConversion() {
+        convertingLocks = true;
+        remainingConversions = 0;
+        for (int i = 0; i < writePageIndex.length; i++) {
+            writeLocksConverted[i].clear();
+            remainingConversions += writePageNumsToServersWithPage.get(writePageIndex[i]).size();
         }
+    }
 
-        allFound &= lockedReadPages.containsAll(readPageNums);
+    public void lockConverted(int pageNum, int serverID) {
+        int writeIndex = Arrays.binarySearch(writePageIndex, pageNum);
+        if (!convertingLocks || writeIndex < 0 || writeLocksConverted[writeIndex].get(serverID))
+            return;
 
-        return allFound;
+        writeLocksConverted[writeIndex].set(serverID);
+        remainingConversions--;
     }
 
     public void cohortReadyToCommit(int serverID) {
-        readyToCommitCohorts.add(serverID);
+        if (readyToCommitCohorts.get(serverID))
+            return;
+
+        readyToCommitCohorts.set(serverID);
+        if (cohortServerSet.get(serverID))
+            remainingCohortsToBeReady--;
     }
 
 
     // **  Stage 4  - Write Pages         ** //
 
     public void writeCompleted(int pNum) {
-        pagesWritten.add(pNum);
+        int index = Arrays.binarySearch(allWritePageIndex, pNum);
+        if (index >= 0 && !pagesWritten.get(index)) {
+            pagesWritten.set(index);
+            remainingWrites--;
+        }
     }
 
 
@@ -126,6 +225,12 @@ public class Transaction {
 
     public void addCohort(int serverID) {
         cohortServers.add(serverID);
+
+        if (!cohortServerSet.get(serverID)) {
+            cohortServerSet.set(serverID);
+            if (!readyToCommitCohorts.get(serverID))
+                remainingCohortsToBeReady++;
+        }
     }
 
     public List<Integer> getCohortServerIDS() {
@@ -145,7 +250,7 @@ public class Transaction {
     }
 
     public boolean allWriteJobsCompleted() {
-        return pagesWritten.containsAll(allWritePageNums);
+        return remainingWrites == 0;
     }
 
     public Map<Integer, List<Integer>> getWritePageNumsToServersWithPage() {
@@ -201,8 +306,9 @@ public class Transaction {
     }
 
     public List<Integer> getNotCompletedWriteJobs() {
-        List<Integer> notCompletedWriteJobs = new ArrayList<>(allWritePageNums);
-        notCompletedWriteJobs.removeAll(pagesWritten);
+        List<Integer> notCompletedWriteJobs = new ArrayList<>();
+        for (int i = pagesWritten.nextClearBit(0); i < allWritePageIndex.length; i = pagesWritten.nextClearBit(i + 1))
+            notCompletedWriteJobs.add(allWritePageIndex[i]);
         return notCompletedWriteJobs;
     }
 
@@ -214,10 +320,32 @@ public class Transaction {
         this.completed = completed;
     }
 
+    /**
+     * Indexes the pages, called once the pages this transaction works on at this server are known
+     */
     public void prepareToStart() {
-        writePageNums.forEach(pageNum -> {
-            pageNumsToServerIDLocksAcquired.put(pageNum, new ArrayList<>());
-        });
+        readPageIndex = toSortedArray(readPageNums);
+        writePageIndex = toSortedArray(writePageNums);
+        allWritePageIndex = toSortedArray(allWritePageNums);
+
+        writeLocksAcquired = new BitSet[writePageIndex.length];
+        writeLocksConverted = new BitSet[writePageIndex.length];
+        for (int i = 0; i < writeLocksAcquired.length; i++) {
+            writeLocksAcquired[i] = new BitSet();
+            writeLocksConverted[i] = new BitSet();
+        }
+        convertingLocks = false;
+
+        lockedReadPages.clear();
+        processedPages.clear();
+        pagesWritten.clear();
+        remainingLocks = readPageIndex.length + writePageIndex.length;
+        remainingPagesToProcess = readPageIndex.length + writePageIndex.length;
+        remainingWrites = allWritePageIndex.length;
+    }
+
+    private static int[] toSortedArray(List<Integer> pageNums) {
+        return pageNums.stream().mapToInt(Integer::intValue).sorted().distinct().toArray();
     }
 
     public void setCompletedTime(int completedTime) {
@@ -253,19 +381,32 @@ public class Transaction {
     }
 
     public List<Integer> getLockedReadPages() {
-        return lockedReadPages;
+        return pagesAt(readPageIndex, lockedReadPages, 0);
     }
 
     public List<Integer> getProcessedPages() {
-        return processedPages;
+        List<Integer> processed = pagesAt(readPageIndex, processedPages, 0);
+        processed.addAll(pagesAt(writePageIndex, processedPages, readPageIndex.length));
+        return processed;
     }
 
     public List<Integer> getPagesWritten() {
-        return pagesWritten;
+        return pagesAt(allWritePageIndex, pagesWritten, 0);
+    }
+
+    /**
+     * @return the pages in the index whose bits are set, the bits for the index start at offset
+     */
+    private static List<Integer> pagesAt(int[] pageIndex, BitSet bits, int offset) {
+        List<Integer> pages = new ArrayList<>();
+        for (int i = 0; i < pageIndex.length; i++)
+            if (bits.get(offset + i))
+                pages.add(pageIndex[i]);
+        return pages;
     }
 
     public List<Integer> getReadyToCommitCohorts() {
-        return readyToCommitCohorts;
+        return readyToCommitCohorts.stream().boxed().collect(Collectors.toList());
     }
 
     public List<Integer> getCommittedCohorts() {
@@ -277,7 +418,17 @@ public class Transaction {
     }
 
     public Map<Integer, List<Integer>> getPageNumsToServerIDLocksAcquired() {
-        return pageNumsToServerIDLocksAcquired;
+        Map<Integer, List<Integer>> locksAcquired = new HashMap<>();
+        for (int i = 0; i < writePageIndex.length; i++)
+            locksAcquired.put(writePageIndex[i], writeLocksAcquired[i].stream().boxed().collect(Collectors.toList()));
+        return locksAcquired;
+    }
+
+    /**
+     * The deadline is the arrival time plus the execution time and the slack time
+     */
+    public int getArrivalTime() {
+        return deadline - executionTime - slackTime;
     }
 
     public int getSlackTime() {
@@ -291,6 +442,8 @@ public class Transaction {
     public void resetAfterAbort(){
 
         cohortServers.clear();
+        cohortServerSet.clear();
+        remainingCohortsToBeReady = 0;
 
         readPageNums.clear();
         readPageNums.addAll(allReadPageNums);
@@ -298,15 +451,12 @@ public class Transaction {
         writePageNums.clear();
         writePageNums.addAll(allWritePageNums);
 
-        lockedReadPages.clear();
-        processedPages.clear();
-        pagesWritten.clear();
         readyToCommitCohorts.clear();
         committedCohorts.clear();
         completedCohorts.clear();
 
-        pageNumsToServerIDLocksAcquired.clear();
         writePageNumsToServersWithPage.clear();
+        prepareToStart();
     }
 
     public void incAbortCount() {
@@ -22,6 +22,12 @@ public class TransactionGenerator {
     private final int serverID;
     private final Consumer<Event> eventQueue;
 
+    /**
+     * The pre-generated arrivals for this server when common random numbers are used, otherwise null
+     */
+    private final List<Workload.Arrival> arrivals;
+    private int nextArrival;
+
     public void start() {
         generateTransaction();
     }
@@ -30,10 +36,31 @@ public class TransactionGenerator {
         if (remainingTransactions-- == 0)
             return;
 
+        //With common random numbers the workload was generated up front, so we just replay it
+        if (arrivals != null) {
+            transConsumer.accept(arrivals.get(nextArrival++).createTransaction());
+
+            int nextTransArriveTime = nextArrival < arrivals.size() ? arrivals.get(nextArrival).getTime() : timeProvider.get();
+            eventQueue.accept(new Event(nextTransArriveTime, serverID, this::generateTransaction, false));
+            return;
+        }
+
         int nextTransArriveTime = timeProvider.get() + getPoisson(simParams.arrivalRateMean, transGeneratorRand);
 
-        int numReadPages = (int) ((8 * transGeneratorRand.get() + 2) * (1 - simParams.getUpdateRate()));
-        int numWritePages = (int) ((8 * transGeneratorRand.get() + 2) * simParams.getUpdateRate());
+        Transaction t = createTransaction(IDProvider.get(), server.getID(), timeProvider.get(), simParams.getUpdateRate(), transGeneratorRand, pageNumProvider);
+
+        transConsumer.accept(t);
+
+        eventQueue.accept(new Event(nextTransArriveTime, serverID, this::generateTransaction, false));
+    }
+
+    /**
+     * Creates a transaction arriving at the given time. All the randomness comes from rand and pageNumProvider.
+     * This is shared with Workload so both the on-line and the pre-generated workloads have the same shape.
+     */
+    static Transaction createTransaction(int ID, int serverID, int time, double updateRate, Supplier<Double> rand, Supplier<Integer> pageNumProvider) {
+        int numReadPages = (int) ((8 * rand.get() + 2) * (1 - updateRate));
+        int numWritePages = (int) ((8 * rand.get() + 2) * updateRate);
 
         // Write pages have to be read AND written to disk. So they have 2*disk read write time
         // Read pages have to be only read from disk then processed.
@@ -43,9 +70,9 @@ public class TransactionGenerator {
         // MANI: CHANGE!!!
         int SLACKTIME_COEFF = 2;
         int slackTime = execTime * SLACKTIME_COEFF;
-        int deadline = timeProvider.get() + execTime + slackTime;
+        int deadline = time + execTime + slackTime;
 
-        Transaction t = new Transaction(IDProvider.get(), server.getID(), deadline);
+        Transaction t = new Transaction(ID, serverID, deadline);
         t.setSlackTime(slackTime);
 
         List<Integer> allReadPageNums = t.getAllReadPageNums();
@@ -76,9 +103,7 @@ public class TransactionGenerator {
         t.setWorkload(allReadPageNums.size() + allWritePageNums.size());
         t.setExecutionTime(execTime);
 
-        transConsumer.accept(t);
-
-        eventQueue.accept(new Event(nextTransArriveTime, serverID, this::generateTransaction, false));
+        return t;
     }
 
     public int getRemainingTransactions() {
@@ -98,6 +123,9 @@ public class TransactionGenerator {
         remainingTransactions = simParams.getNumTransPerServer();
 
         serverID = server.getID();
+
+        Workload workload = simParams.getWorkload();
+        arrivals = workload == null ? null : workload.getArrivals(serverID);
     }
 
     public static int getPoisson(double lambda, Supplier<Double> rand) {
@@ -1,16 +1,22 @@
 package simulator.server.transactionManager;
 
-import com.sun.istack.internal.Nullable;
 import exceptions.WTFException;
 import simulator.SimParams;
+import simulator.enums.MessageType;
 import simulator.enums.ServerProcess;
 import simulator.eventQueue.Event;
+import simulator.protocols.restart.RestartPolicy;
 import simulator.server.Server;
+import simulator.server.disk.Disk;
 import simulator.server.disk.DiskJob;
+import simulator.server.lockManager.Lock;
 import simulator.server.lockManager.LockManager;
+import simulator.server.lockManager.LockMode;
 import simulator.server.network.Message;
+import simulator.server.network.MulticastMessage;
 import simulator.server.network.NetworkInterface;
 import simulator.server.processor.ProcessorJob;
+import simulator.server.transactionManager.TransactionRegistry.State;
 import ui.Log;
 
 import java.util.*;
@@ -18,27 +24,37 @@ import java.util.function.Consumer;
 import java.util.function.Supplier;
 
 public class TransactionManager {
-    public static final String COLON = ":";
-    public static final String OBJECT = "OBJECT";
     private final SimParams simParams;
     private final Log log;
 
     private final Server server;
     private final int serverID;
     private final int maxActiveTrans;
+
+    /**
+     * Adjusts the limit on active transactions, null if it is fixed at maxActiveTrans
+     */
+    private final AdmissionController admissionController;
+
+    /**
+     * Decides when aborted transactions are restarted
+     */
+    private final RestartPolicy restartPolicy;
     private final TransactionGenerator TG;
 
     private final Consumer<Event> eventQueue;
     private final Supplier<Integer> timeProvider;
-    private final List<Transaction> queuedTransactions = new ArrayList<>();
-    private final List<Transaction> activeTransactions = new ArrayList<>();
-    private final List<Transaction> completedTransactions = new ArrayList<>();
-    private final List<Transaction> abortedTransactions = new ArrayList<>();
-    private final List<Transaction> allMasterTransactions = new ArrayList<>();
-    private final List<Transaction> abortedAndGoingToBeRestartedTransactions = new ArrayList<>();
+    private final TransactionRegistry transactions;
+    private final AdmissionQueue queuedTransactions;
+    private final List<Transaction> activeTransactions;
 
     private final Supplier<Double> transManagerRand;
 
+    /**
+     * Ticks between checks for transactions that can't finish before their deadline
+     */
+    private static final int FEASIBILITY_CHECK_INTERVAL = 100;
+
     public TransactionManager(Server server, SimParams simParams) {
         this.server = server;
         serverID = server.getID();
@@ -51,13 +67,45 @@ public class TransactionManager {
         this.simParams = simParams;
 
         transManagerRand = simParams.getTransManagerRand();
+
+        transactions = new TransactionRegistry(simParams.getPp(), timeProvider, simParams.getRetention(), this::evicted);
+        queuedTransactions = transactions.getQueued();
+        activeTransactions = transactions.getActive();
+
+        restartPolicy = RestartPolicy.getRestartPolicy(simParams.getRestartPolicy(), simParams, serverID);
+
+        if (simParams.usesAdaptiveAdmission()) {
+            admissionController = new AdmissionController(maxActiveTrans);
+            eventQueue.accept(new Event(timeProvider.get() + AdmissionController.CONTROL_INTERVAL, serverID, this::adjustAdmissionLimit, true));
+        } else
+            admissionController = null;
+
+        if (simParams.usesEarlyAbort())
+            eventQueue.accept(new Event(timeProvider.get() + FEASIBILITY_CHECK_INTERVAL, serverID, this::abortInfeasibleTransactions, true));
+    }
+
+    private int getMaxActiveTrans() {
+        return admissionController == null ? maxActiveTrans : admissionController.getLimit();
+    }
+
+    private void adjustAdmissionLimit() {
+        int change = admissionController.adjust(server.getLM().getConflictRatio());
+        simParams.stats.addAdmissionLimit(admissionController.getLimit());
+
+        if (Log.isLoggingEnabled() && change != 0)
+            log.log("Admission limit changed by " + change + " to " + admissionController.getLimit());
+
+        //checkToStartTrans starts one transaction at a time
+        for (int i = 0; i < change; i++)
+            eventQueue.accept(new Event(timeProvider.get() + 1, serverID, this::checkToStartTrans));
+
+        eventQueue.accept(new Event(timeProvider.get() + AdmissionController.CONTROL_INTERVAL, serverID, this::adjustAdmissionLimit, true));
     }
 
     private void acceptTrans(Transaction t) {
         if(Log.isLoggingEnabled())
             log.log(t,"Transaction generated: " + t.fullToString());
-        allMasterTransactions.add(t);
-        queuedTransactions.add(t);
+        transactions.setState(t, State.Queued);
 
         eventQueue.accept(new Event(timeProvider.get() + 1, serverID, this::checkToStartTrans));
 
@@ -68,14 +116,14 @@ public class TransactionManager {
         //So if we are not using a deadlock DP that requires a wait-for graph we do not need to do this
         if (simParams.usesWFG) {
             //Alert the other nodes of this transactions presence
-            for (int i = 0; i < simParams.numberOfServers; i++) {
-                if (i != serverID) {
-                    Message message = new Message(i, ServerProcess.TransactionManager, tInfo, t.getDeadline());
-                    message.setSize(1);
-                    server.getNIC().sendMessage(message);
-                    simParams.messageOverhead++;
-                }
-            }
+            int[] otherServers = new int[simParams.numberOfServers - 1];
+            for (int i = 0, j = 0; i < simParams.numberOfServers; i++)
+                if (i != serverID)
+                    otherServers[j++] = i;
+
+            MulticastMessage message = new MulticastMessage(serverID, otherServers, ServerProcess.TransactionManager, MessageType.TransInfo, Message.NO_FIELDS, tInfo, t.getDeadline());
+            server.getNIC().multicast(message);
+            simParams.messageOverhead += otherServers.length;
         }
     }
 
@@ -90,15 +138,18 @@ public class TransactionManager {
             return;
         }
 
-        if (activeTransactions.size() < maxActiveTrans) {
+        if (activeTransactions.size() < getMaxActiveTrans()) {
             if (Log.isLoggingEnabled())
                 log.log("Starting new transactions (Num Active = " + activeTransactions.size() + ")");
 
-            Transaction t = simParams.getPp().getHighestPriorityTrans(queuedTransactions);
+            Transaction t = queuedTransactions.peek();
             startTransaction(t);
         } else {
             if (Log.isLoggingEnabled())
                 log.log("Too many active transactions to start another.");
+
+            if (admissionController != null)
+                admissionController.saturated();
         }
     }
 
@@ -106,9 +157,7 @@ public class TransactionManager {
         if (Log.isLoggingEnabled())
             log.log(t, "Starting " + t);
 
-        boolean abortedAndRestarted = abortedAndGoingToBeRestartedTransactions.remove(t);
-        queuedTransactions.remove(t);
-
+        boolean abortedAndRestarted = transactions.isInState(t.getID(), State.Restarting);
 
         /*
             If the system is performing very poorly the deadline will be in the past before the transaction is even started.
@@ -122,7 +171,7 @@ public class TransactionManager {
 
             t.setCompletedTime(Integer.MAX_VALUE);
             t.setAborted(true);
-            abortedTransactions.add(t);
+            transactions.setState(t, State.Aborted);
 
             if( !(t instanceof CohortTransaction) ) {
                 simParams.stats.addTimeout();
@@ -133,7 +182,7 @@ public class TransactionManager {
         }
         //*/
 
-        activeTransactions.add(t);
+        transactions.setState(t, State.Active);
 
         //Set up a timeout event, only for master transactions
         if (!(t instanceof CohortTransaction))
@@ -163,18 +212,91 @@ public class TransactionManager {
         if (!(t instanceof CohortTransaction))
             spawnChildren(t);
 
+        t.setUsesUpdateLocks(simParams.usesUpdateLocks());
         server.acquireLocks(t);
     }
 
+    /**
+     * Aborts the master transactions that can't finish before their deadline. Cohorts that can't tell their master.
+     */
+    private void abortInfeasibleTransactions() {
+        int time = timeProvider.get();
+
+        for (Transaction t : new ArrayList<>(activeTransactions)) {
+            if (t.isCommitted() || time + estimateRemainingTime(t) <= t.getDeadline())
+                continue;
+
+            if (t instanceof CohortTransaction) {
+                CohortTransaction cohort = (CohortTransaction) t;
+                //The master aborts it when the message arrives, it only needs telling once
+                if (cohort.hasToldMasterInfeasible())
+                    continue;
+
+                if (Log.isLoggingEnabled())
+                    log.log(t, "Can't finish before the deadline, telling the master");
+
+                server.getNIC().sendMessage(new Message(cohort.getMasterServerID(), ServerProcess.TransactionManager, MessageType.CannotMeetDeadline, t.getDeadline(), t.getID(), serverID));
+                cohort.setToldMasterInfeasible();
+            } else
+                abortInfeasible(t);
+        }
+
+        eventQueue.accept(new Event(time + FEASIBILITY_CHECK_INTERVAL, serverID, this::abortInfeasibleTransactions, true));
+    }
+
+    /**
+     * Estimates how long the transaction's work on this server will still take, from the queueing delays seen at the disk and CPU.
+     * Pages still waiting for a lock are counted as if they were locked now, so this is an optimistic estimate.
+     * Each page is read then processed, and once committed the write pages are written.
+     */
+    private int estimateRemainingTime(Transaction t) {
+        Disk disk = server.getDisk();
+        double time = 0;
+
+        int pagesToProcess = t.getNumPagesToProcess();
+        if (pagesToProcess > 0)
+            time += disk.getAverageQueueingDelay() + server.getCPU().getAverageQueueingDelay()
+                    + pagesToProcess * (SimParams.diskReadWriteTime + SimParams.processTime);
+
+        int pagesToWrite = t.getWritePageNums().size();
+        if (pagesToWrite > 0)
+            time += disk.getAverageQueueingDelay() + pagesToWrite * SimParams.diskReadWriteTime;
+
+        return (int) time;
+    }
+
+    /**
+     * Aborts a master transaction that can't finish before its deadline. It is not restarted since it would have even more work to do.
+     */
+    private void abortInfeasible(Transaction t) {
+        if (Log.isLoggingEnabled())
+            log.log(t, "<font color=\"red\">Can't finish before the deadline, aborting early</font>");
+
+        abort(t, false);
+        simParams.stats.addEarlyAbort();
+    }
+
+    /**
+     * @return the transactions holding locks on this server that the transaction is waiting for
+     */
+    private Set<Integer> getConflictingTransactions(Transaction t) {
+        LockManager lm = server.getLM();
+        Set<Integer> conflicting = new HashSet<>();
+
+        for (Lock waitingLock : lm.getAllWaitingLocksFor(t.getID()))
+            for (Lock heldLock : lm.getBlockingLocks(waitingLock))
+                conflicting.add(heldLock.getTransID());
+
+        return conflicting;
+    }
+
     /**
      * Abort a transaction based on its ID
      */
     public void abort(int transID) {
-        Transaction t = getAbortedTransaction(transID);
-        if (t == null && !hasBeenAbortedAndGoingToBeRestarted(transID)) {
-            t = getCompletedTransaction(transID);
-            if (t == null) {
-                t = getActiveTransaction(transID);
+        if (!hasBeenAborted(transID) && !hasBeenAbortedAndGoingToBeRestarted(transID)) {
+            if (!transactions.isInState(transID, State.Completed)) {
+                Transaction t = getActiveTransaction(transID);
 
                 if (!t.isCommitted())
                     abort(t);
@@ -189,6 +311,15 @@ public class TransactionManager {
      * Abort this transaction t
      */
     private void abort(Transaction t) {
+        abort(t, true);
+    }
+
+    /**
+     * Abort this transaction t
+     *
+     * @param mayRestart false to not restart a master transaction, even if its deadline is far enough away
+     */
+    private void abort(Transaction t, boolean mayRestart) {
         t.incAbortCount();
 
         if (Log.isLoggingEnabled()) {
@@ -202,37 +333,41 @@ public class TransactionManager {
 
         if (!(t instanceof CohortTransaction)) {
             NetworkInterface NIC = server.getNIC();
-            String abortMsg = "A:" + t.getID();
             t.getCohortServerIDS().forEach(serverID -> {
                 if (Log.isLoggingEnabled())
                     log.log(t, "<font color=\"red\">Sending abort message to server " + serverID + "</font>");
 
-                NIC.sendMessage(new Message(serverID, ServerProcess.TransactionManager, abortMsg, timeProvider.get()));
+                NIC.sendMessage(new Message(serverID, ServerProcess.TransactionManager, MessageType.AbortTransaction, timeProvider.get(), t.getID()));
             });
         }
 
+        boolean master = !(t instanceof CohortTransaction);
+        if (master && t.getAbortCount() > 1)
+            simParams.stats.addRepeatedAbort();
+
+        Set<Integer> conflictingTransIDs = master && restartPolicy.waitsForConflicts() ? getConflictingTransactions(t) : Collections.emptySet();
+
         server.abort(t);
-        activeTransactions.remove(t);
         eventQueue.accept(new Event(timeProvider.get() + 1, serverID, this::checkToStartTrans));
 
-        if( true && !(t instanceof CohortTransaction) && t.getDeadline() > simParams.timeProvider.get()+SimParams.predictedTransactionTime ){
+        if( mayRestart && !(t instanceof CohortTransaction) && t.getDeadline() > simParams.timeProvider.get()+SimParams.predictedTransactionTime ){
             log.log(t, "<font color=\"green\">Deadline in the future, restarting transaction</font>");
 
-            abortedAndGoingToBeRestartedTransactions.add(t);
+            transactions.setState(t, State.Restarting);
 
             t.resetAfterAbort();
-            // We post this event slightly in the future so the cohorts can be aborted before they receive a message to start the cohort again.
-            eventQueue.accept(new Event(timeProvider.get()+30 ,serverID, () -> {
-                queuedTransactions.add(t);
+            int abortTime = timeProvider.get();
+            restartPolicy.scheduleRestart(t, conflictingTransIDs, () -> {
+                simParams.stats.addRestartDelay(timeProvider.get() - abortTime);
                 startTransaction(t);
-            }));
+            });
 
             simParams.stats.addNumAbortedAndRestarted();
         }
         else {
             t.setCompletedTime(Integer.MAX_VALUE);
             t.setAborted(true);
-            abortedTransactions.add(t);
+            transactions.setState(t, State.Aborted);
 
             if( !(t instanceof CohortTransaction) )
                 simParams.stats.addNumAborted();
@@ -243,29 +378,21 @@ public class TransactionManager {
 
 
     /**
-     * Protocol Message:
+     * Messages are dispatched on their type, see MessageType for the fields of each:
      * <p>
-     * Create Trans    - C:<TransNum>:<deadline>:<ServerID>:<ReadPages>:<WritePages>
-     * Abort Trans     - A:<TransNum>
-     * Lock Acquired   - L:<TransNum>:<PageNum>:<ServerID>
-     * Commit Trans    - CT:<TransNum>
-     * Ready To Commit - RTC:<TransNum>:<ServerID>
-     * Write Completed - WC:<TransNum>:<ServerID>:<PageNum>
-     * Cohort Completed- CC:<TransNum>:<ServerID>
-     * <p>
-     * Object Message:
-     * Message will be "OBJECT", we then look at the object field and act appropriately
-     * <p>
-     * ex
-     * A:5:42:E Acquire page 5 for trans 42 exclusive
-     * C:5:462:1,2,3,4:5,6,7,8 Create cohort trans with id=5, deadline=462, read pages:1,2,3,4, and write pages 5,6,7,8
+     * CreateCohort     - transID, deadline, masterServerID, numReadPages, read pages..., write pages...
+     * AbortTransaction - transID
+     * Commit           - transID
+     * ReadyToCommit    - transID, cohortServerID
+     * WriteCompleted   - transID, cohortServerID, pageNum
+     * CohortCompleted  - transID, cohortServerID
+     * CannotMeetDeadline - transID, cohortServerID
+     * TransInfo        - no fields, the object is the TransInfo
      *
      * @param message
      */
     public void receiveMessage(Message message) {
-        String msg = message.getContents();
-
-        if (msg.equals(OBJECT)) {
+        if (message.getType() == MessageType.TransInfo) {
             TransInfo tInfo = (TransInfo) message.getObject();
             //transInfos.put(tInfo.transID,tInfo);
 
@@ -273,12 +400,10 @@ public class TransactionManager {
             return;
         }
 
-        String[] components = msg.split(COLON);
+        int transID = message.getField(0);
 
-        int transID = Integer.parseInt(components[1]);
-
-        switch (components[0]) {
-            case "A": {
+        switch (message.getType()) {
+            case AbortTransaction: {
 
                 if (Log.isLoggingEnabled())
                     log.log(transID, "Abort message received");
@@ -288,32 +413,25 @@ public class TransactionManager {
 
                 break;
             }
-            case "C": {
+            case CreateCohort: {
                 if (Log.isLoggingEnabled())
-                    log.log(transID, "Received message to create a cohort transaction: " + msg);
+                    log.log(transID, "Received message to create a cohort transaction: " + message);
 
-                int deadline = Integer.parseInt(components[2]);
-                int masterServerID = Integer.parseInt(components[3]);
-                String[] readPagesStr = components[4].split(",");
+                int deadline = message.getField(1);
+                int masterServerID = message.getField(2);
+                int numReadPages = message.getField(3);
 
                 CohortTransaction ct = new CohortTransaction(transID, server.getID(), deadline, masterServerID);
 
-                //Might be no read pages, this is for safety
-                if (!components[4].isEmpty()) {
-                    List<Integer> readPageNums = ct.getReadPageNums();
+                List<Integer> readPageNums = ct.getReadPageNums();
+                List<Integer> writePageNums = ct.getWritePageNums();
+                int firstWritePage = 4 + numReadPages;
 
-                    for (String readPageStr : readPagesStr)
-                        readPageNums.add(Integer.parseInt(readPageStr));
-                }
+                for (int i = 4; i < firstWritePage; i++)
+                    readPageNums.add(message.getField(i));
 
-                //If it contains write pages
-                if (components.length == 6) {
-                    String[] writePagesStr = components[5].split(",");
-                    List<Integer> writePageNums = ct.getWritePageNums();
-
-                    for (String writePageStr : writePagesStr)
-                        writePageNums.add(Integer.parseInt(writePageStr));
-                }
+                for (int i = firstWritePage; i < message.getNumFields(); i++)
+                    writePageNums.add(message.getField(i));
 
                 ct.prepareToStart();
 
@@ -321,22 +439,9 @@ public class TransactionManager {
 
                 break;
             }
-            case "L": {
-                if (Log.isLoggingEnabled())
-                    log.log(transID, "Received message that a lock was acquired: " + msg);
-
-                int pageNum = Integer.parseInt(components[2]);
-                int serverID = Integer.parseInt(components[3]);
-
-                activeTransactions.stream().filter(t -> t.getID() == transID).forEachOrdered(t -> {
-                    t.lockAcquired(pageNum, serverID);
-                });
-
-                break;
-            }
-            case "CT": {
+            case Commit: {
                 if (Log.isLoggingEnabled())
-                    log.log(transID, "Received message to commit: " + msg);
+                    log.log(transID, "Received message to commit: " + message);
 
                 Transaction t = getActiveTransaction(transID);
 
@@ -344,9 +449,9 @@ public class TransactionManager {
 
                 break;
             }
-            case "RTC": {
+            case ReadyToCommit: {
                 if (Log.isLoggingEnabled())
-                    log.log(transID, "Received ready to commit message: " + msg);
+                    log.log(transID, "Received ready to commit message: " + message);
 
                 if (hasBeenAborted(transID) || hasBeenAbortedAndGoingToBeRestarted(transID)) {
                     if (Log.isLoggingEnabled())
@@ -355,7 +460,7 @@ public class TransactionManager {
                     break;
                 }
 
-                int serverID = Integer.parseInt(components[2]);
+                int serverID = message.getField(1);
 
                 Transaction t = getActiveTransaction(transID);
                 t.cohortReadyToCommit(serverID);
@@ -363,27 +468,39 @@ public class TransactionManager {
 
                 break;
             }
-            case "WC": {
-                int serverID = Integer.parseInt(components[2]);
-                int pageNum = Integer.parseInt(components[3]);
+            case WriteCompleted: {
+                int serverID = message.getField(1);
+                int pageNum = message.getField(2);
                 if (Log.isLoggingEnabled())
                     log.log(transID, "Write job completed on page: " + pageNum + " at server: " + serverID);
 
-                activeTransactions.stream().filter(t -> t.getID() == transID).forEachOrdered(t -> {
-                    t.writeCompleted(pageNum);
-                });
+                getActiveTransaction(transID).writeCompleted(pageNum);
 
                 tryToComplete(transID);
 
                 break;
             }
-            case "CC": {
+            case CannotMeetDeadline: {
+                if (Log.isLoggingEnabled())
+                    log.log(transID, "Cohort can't finish before the deadline: " + message);
+
+                //It may have been aborted or committed since
+                Transaction t = transactions.getActive(transID);
+                if (t != null && !t.isCommitted())
+                    abortInfeasible(t);
+
+                break;
+            }
+            case CohortCompleted: {
                 if (Log.isLoggingEnabled())
-                    log.log(transID, "Cohort completed: " + msg);
+                    log.log(transID, "Cohort completed: " + message);
 
-                int serverID = Integer.parseInt(components[2]);
+                int serverID = message.getField(1);
 
-                Transaction t = getTransaction(transID);
+                //The master may have finished and been evicted, then nothing is waiting on the cohort anymore
+                Transaction t = findTransaction(transID);
+                if (t == null)
+                    break;
 
                 t.cohortCompleted(serverID);
                 if (!t.isCompleted())
@@ -393,7 +510,7 @@ public class TransactionManager {
             }
 
             default:
-                throw new WTFException("Do not understand message! " + msg);
+                throw new WTFException("Do not understand message! " + message);
         }
     }
 
@@ -445,23 +562,34 @@ public class TransactionManager {
         }
     }
 
-    private boolean hasBeenAborted(int transID) {
-        for (Transaction t : abortedTransactions)
-            if (t.getID() == transID)
-                return true;
-
-        return false;
+    /**
+     * Used when the LM on this server has released a transaction's locks, whether it runs on this server or a remote one
+     */
+    public void locksReleased(int transID) {
+        restartPolicy.locksReleased(transID);
     }
 
-    private boolean hasBeenAbortedAndGoingToBeRestarted(int transID) {
-        for (Transaction t : abortedAndGoingToBeRestartedTransactions)
-            if (t.getID() == transID)
-                return true;
+    /**
+     * Used when a write lock has been converted, on this server or a remote one
+     */
+    public void lockConverted(int transID, int pageNum, int serverID) {
+        if (Log.isLoggingEnabled())
+            log.log(transID, "Lock converted for page " + pageNum + " on server " + serverID);
 
-        return false;
+        if (!hasBeenAborted(transID) && !hasBeenAbortedAndGoingToBeRestarted(transID)) {
+            Transaction t = getActiveTransaction(transID);
+            t.lockConverted(pageNum, serverID);
+            tryToCommit(t);
+        }
     }
 
+    private boolean hasBeenAborted(int transID) {
+        return transactions.hasBeenAborted(transID);
+    }
 
+    private boolean hasBeenAbortedAndGoingToBeRestarted(int transID) {
+        return transactions.isInState(transID, State.Restarting);
+    }
 
     /**
      * This method is called to attempt to commit the transaction
@@ -470,12 +598,21 @@ public class TransactionManager {
      * @param t
      */
     public void tryToCommit(Transaction t) {
+        //With update locks, the write locks are converted to exclusive ones before committing
+        if (t.isReadyToConvertLocks()) {
+            if (Log.isLoggingEnabled())
+                log.log(t, "Pages processed, converting update locks");
+
+            t.startLockConversion();
+            server.getLM().convertLocks(t, LockMode.X);
+        }
+
         if (t.isReadyToCommit()) {
             if (t instanceof CohortTransaction) {
                 if (Log.isLoggingEnabled())
                     log.log(t, "Informing master I am ready to commit");
 
-                server.getNIC().sendMessage(new Message(((CohortTransaction) t).getMasterServerID(), ServerProcess.TransactionManager, "RTC:" + t.getID() + COLON + server.getID(), t.getDeadline()));
+                server.getNIC().sendMessage(new Message(((CohortTransaction) t).getMasterServerID(), ServerProcess.TransactionManager, MessageType.ReadyToCommit, t.getDeadline(), t.getID(), server.getID()));
             } else {
                 if (Log.isLoggingEnabled())
                     log.log(t, "Ready to commit, telling cohorts to commit");
@@ -485,7 +622,7 @@ public class TransactionManager {
                     if (Log.isLoggingEnabled())
                         log.log(t, "Sending message to cohort on server " + serverID + " to commit");
 
-                    server.getNIC().sendMessage(new Message(serverID, ServerProcess.TransactionManager, "CT:" + t.getID(), t.getDeadline()));
+                    server.getNIC().sendMessage(new Message(serverID, ServerProcess.TransactionManager, MessageType.Commit, t.getDeadline(), t.getID()));
                 });
 
                 if (Log.isLoggingEnabled())
@@ -498,7 +635,11 @@ public class TransactionManager {
                         log.log(t, "No write jobs to complete");
 
                     complete(t);
-                } else
+                } else {
+                    //Remote server ID -> the write pages it has, shipped to it in one message
+                    Map<Integer, List<Integer>> remoteWritePages = new TreeMap<>();
+                    Map<Integer, List<Integer>> writePageNumsToServersWithPage = t.getWritePageNumsToServersWithPage();
+
                     t.getWritePageNums().forEach(pageNum -> {
                         if (Log.isLoggingEnabled())
                             log.log(t, "Starting write job for page " + pageNum);
@@ -521,14 +662,16 @@ public class TransactionManager {
                             }
                         }));
 
-                        //Do write jobs on the other servers with this page
-                        Map<Integer, List<Integer>> writePageNumsToServersWithPage = t.getWritePageNumsToServersWithPage();
                         writePageNumsToServersWithPage.get(pageNum).forEach(remoteServID -> {
-                            if (remoteServID != server.getID()) {
-                                server.getNIC().sendMessage(new Message(remoteServID, ServerProcess.Disk, "W:" + t.getID() + COLON + pageNum + COLON + server.getID(), t.getDeadline()));
-                            }
+                            if (remoteServID != server.getID())
+                                remoteWritePages.computeIfAbsent(remoteServID, k -> new ArrayList<>()).add(pageNum);
                         });
                     });
+
+                    //Do write jobs on the other servers with the pages
+                    remoteWritePages.forEach((remoteServID, pageNums) ->
+                            server.getNIC().sendMessage(new Message(remoteServID, ServerProcess.Disk, MessageType.RemoteWrite, t.getDeadline(), Message.withPages(pageNums, t.getID(), server.getID()))));
+                }
             }
         } else {
             if (Log.isLoggingEnabled())
@@ -550,7 +693,7 @@ public class TransactionManager {
         if (t.getWritePageNums().isEmpty()) {
             complete(t);
 
-            server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, "CC:" + t.getID() + COLON + server.getID(), t.getDeadline()));
+            server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, MessageType.CohortCompleted, t.getDeadline(), t.getID(), server.getID()));
         } else
             t.getWritePageNums().forEach(pageNum -> {
                 server.getDisk().addJob(new DiskJob(t.getID(), t.getDeadline(), pageNum, pNum -> {
@@ -558,7 +701,7 @@ public class TransactionManager {
                         log.log(t, "Write job completed for page " + pageNum);
 
                     t.writeCompleted(pNum);
-                    server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, "WC:" + t.getID() + COLON + server.getID() + COLON + pNum, t.getDeadline()));
+                    server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, MessageType.WriteCompleted, t.getDeadline(), t.getID(), server.getID(), pNum));
 
                     if (t.allWriteJobsCompleted()) {
                         if (Log.isLoggingEnabled())
@@ -566,7 +709,7 @@ public class TransactionManager {
 
                         complete(t);
 
-                        server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, "CC:" + t.getID() + COLON + server.getID(), t.getDeadline()));
+                        server.getNIC().sendMessage(new Message(t.getMasterServerID(), ServerProcess.TransactionManager, MessageType.CohortCompleted, t.getDeadline(), t.getID(), server.getID()));
                     }
                 }));
             });
@@ -587,8 +730,9 @@ public class TransactionManager {
             log.log(t, "Releasing locks!");
 
         LockManager lm = server.getLM();
-        t.getReadPageNums().forEach(pageNum -> lm.releaseLocks(t.getID(), pageNum, t.getDeadline()));
-        t.getWritePageNums().forEach(pageNum -> lm.releaseLocks(t.getID(), pageNum, t.getDeadline()));
+        Set<Integer> pageNums = new TreeSet<>(t.getReadPageNums());
+        pageNums.addAll(t.getWritePageNums());
+        lm.releaseLocks(t.getID(), pageNums, t.getDeadline());
 
         int time = simParams.getTime();
         boolean completedOnTime = t.getDeadline() >= time;
@@ -608,25 +752,19 @@ public class TransactionManager {
                 simParams.stats.addCompletedOnTime(t.getID());
             else
                 simParams.stats.addCompletedLate(t.getID());
+            simParams.stats.addResponseTime(time - t.getArrivalTime());
         }
 
-        completedTransactions.add(t);
-        activeTransactions.remove(t);
+        transactions.setState(t, State.Completed);
         eventQueue.accept(new Event(timeProvider.get() + 1, serverID, this::checkToStartTrans));
 
         // Integrity Check!
-        lm.getWaitingLocks().values().forEach(locksLists -> {
-            locksLists.forEach(lock -> {
-                if (lock.getTransID() == t.getID())
-                    throw new WTFException(serverID + ": Transaction " + t.getID() + " just completed but it has waiting locks still! (Page " + lock.getPageNum() + ")");
-            });
+        lm.getAllWaitingLocksFor(t.getID()).forEach(lock -> {
+            throw new WTFException(serverID + ": Transaction " + t.getID() + " just completed but it has waiting locks still! (Page " + lock.getPageNum() + ")");
         });
 
-        lm.getHeldLocks().values().forEach(locksLists -> {
-            locksLists.forEach(lock -> {
-                if (lock.getTransID() == t.getID())
-                    throw new WTFException(serverID + ": Transaction " + t.getID() + " just completed but it has held locks still! (Page " + lock.getPageNum() + ")");
-            });
+        lm.getAllHeldLocksFor(t.getID()).forEach(lock -> {
+            throw new WTFException(serverID + ": Transaction " + t.getID() + " just completed but it has held locks still! (Page " + lock.getPageNum() + ")");
         });
     }
 
@@ -670,39 +808,15 @@ public class TransactionManager {
         });
 
 
-        //This is to prevent children from being send to 0 and 4 since they have the same pages
-        if (serversToPages.containsKey(0) && serversToPages.containsKey(4)) {
-            if (transManagerRand.get() < 0.5) {
-                serversToPages.get(0).addAll(serversToPages.remove(4));
-            } else {
-                serversToPages.get(4).addAll(serversToPages.remove(0));
-            }
-        }
-
-        //This is to prevent children from being send to 1 and 5 since they have the same pages
-        if (serversToPages.containsKey(1) && serversToPages.containsKey(5)) {
-            if (transManagerRand.get() < 0.5) {
-                serversToPages.get(1).addAll(serversToPages.remove(5));
-            } else {
-                serversToPages.get(5).addAll(serversToPages.remove(1));
-            }
-        }
-
-        //This is to prevent children from being send to 2 and 6 since they have the same pages
-        if (serversToPages.containsKey(2) && serversToPages.containsKey(6)) {
-            if (transManagerRand.get() < 0.5) {
-                serversToPages.get(2).addAll(serversToPages.remove(6));
-            } else {
-                serversToPages.get(6).addAll(serversToPages.remove(2));
-            }
-        }
-
-        //This is to prevent children from being send to 3 and 7 since they have the same pages
-        if (serversToPages.containsKey(3) && serversToPages.containsKey(7)) {
-            if (transManagerRand.get() < 0.5) {
-                serversToPages.get(3).addAll(serversToPages.remove(7));
-            } else {
-                serversToPages.get(7).addAll(serversToPages.remove(3));
+        //This is to prevent children from being send to both i and i + numberOfServers/2 since they have the same pages
+        for (int i = 0; i < simParams.numberOfServers / 2; i++) {
+            int replica = simParams.getReplicaServer(i);
+            if (serversToPages.containsKey(i) && serversToPages.containsKey(replica)) {
+                if (transManagerRand.get() < 0.5) {
+                    serversToPages.get(i).addAll(serversToPages.remove(replica));
+                } else {
+                    serversToPages.get(replica).addAll(serversToPages.remove(i));
+                }
             }
         }
 
@@ -740,23 +854,20 @@ public class TransactionManager {
     }
 
     private static Message generateCreateChildMessage(int thisServerID, int serverID, int transID, int deadline, List<Integer> readPagesOnThisServer, List<Integer> writePagesOnThisServer) {
-        StringBuilder sb = new StringBuilder();
-
-        // C:<TransNum>:<deadline>:1,5,25,4:77,45,3,5
-        sb.append("C:").append(transID).append(':').append(deadline).append(':').append(thisServerID).append(':');
-
-        if (!readPagesOnThisServer.isEmpty()) {
-            readPagesOnThisServer.forEach(pageNum -> sb.append(pageNum).append(','));
-            sb.deleteCharAt(sb.length() - 1);
-        }
-
-        sb.append(':');
-
-        if (!writePagesOnThisServer.isEmpty()) {
-            writePagesOnThisServer.forEach(pageNum -> sb.append(pageNum).append(','));
-            sb.deleteCharAt(sb.length() - 1);
-        }
-        return new Message(serverID, ServerProcess.TransactionManager, sb.toString(), deadline);
+        // transID, deadline, masterServerID, numReadPages, read pages..., write pages...
+        int[] fields = new int[4 + readPagesOnThisServer.size() + writePagesOnThisServer.size()];
+        fields[0] = transID;
+        fields[1] = deadline;
+        fields[2] = thisServerID;
+        fields[3] = readPagesOnThisServer.size();
+
+        int i = 4;
+        for (int pageNum : readPagesOnThisServer)
+            fields[i++] = pageNum;
+        for (int pageNum : writePagesOnThisServer)
+            fields[i++] = pageNum;
+
+        return new Message(serverID, ServerProcess.TransactionManager, MessageType.CreateCohort, fields, null, deadline);
     }
 
     public void start() {
@@ -764,53 +875,24 @@ public class TransactionManager {
     }
 
     public Transaction getTransaction(int transID) {
-        for (Transaction t : activeTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        for (Transaction t : queuedTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        for (Transaction t : completedTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        for (Transaction t : abortedTransactions)
-            if (t.getID() == transID)
-                return t;
-//
-        for (Transaction t : allMasterTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        throw new WTFException(server.getID() + ":Could not find transaction " + transID);
-    }
-
-    private Transaction getActiveTransaction(int transID) {
-        for (Transaction t : activeTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        throw new WTFException(server.getID() + ": Could not find transaction " + transID);
+        Transaction t = transactions.get(transID);
+        if (t == null)
+            throw new WTFException(server.getID() + ":Could not find transaction " + transID);
+        return t;
     }
 
-    @Nullable
-    private Transaction getAbortedTransaction(int transID) {
-        for (Transaction t : abortedTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        return null;
+    /**
+     * @return the transaction, null if there is none or it finished more than the retention period ago
+     */
+    public Transaction findTransaction(int transID) {
+        return transactions.get(transID);
     }
 
-
-    private Transaction getCompletedTransaction(int transID) {
-        for (Transaction t : completedTransactions)
-            if (t.getID() == transID)
-                return t;
-
-        return null;
+    private Transaction getActiveTransaction(int transID) {
+        Transaction t = transactions.getActive(transID);
+        if (t == null)
+            throw new WTFException(server.getID() + ": Could not find transaction " + transID);
+        return t;
     }
 
     /* For debugging purposes
@@ -818,11 +900,7 @@ public class TransactionManager {
         List<Integer> readPages = Arrays.asList(1, 2, 3, 4);
         List<Integer> writePages = new ArrayList<>();//Arrays.asList(5,6,7,8);
         Message msg = generateCreateChildMessage(0, 0, 1, 2, readPages, writePages);
-        System.out.println(msg.getContents());
-        String[] split = msg.getContents().split(COLON);
-        for (String s : split) {
-            System.out.println(s);
-        }
+        System.out.println(msg);
     }
     */
 
@@ -835,15 +913,23 @@ public class TransactionManager {
     }
 
     public boolean isOnThisServer(int transID) {
-        for (Transaction t : activeTransactions)
-            if (t.getID() == transID)
-                return true;
+        return transactions.isInState(transID, State.Active);
+    }
 
-        return false;
+    /**
+     * @return true if a master transaction with this ID completed on this server before the time.
+     * Only answers for the retention period, transactions that finished before that are only known to have finished.
+     */
+    public boolean completedBefore(int transID, int time) {
+        return transactions.completedBefore(transID, time);
     }
 
-    public List<Transaction> getAllMasterTransactions() {
-        return allMasterTransactions;
+    /**
+     * Called when a finished transaction is dropped from the registry. Nothing needs its TransInfo anymore either.
+     */
+    private void evicted(Transaction t) {
+        if (!(t instanceof CohortTransaction))
+            simParams.transInfos.remove(t.getID());
     }
 
     public TransactionGenerator getTG() {
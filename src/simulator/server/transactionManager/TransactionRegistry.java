@@ -0,0 +1,274 @@
+package simulator.server.transactionManager;
+
+import simulator.protocols.priority.PriorityProtocol;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.List;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Every transaction a TransactionManager has seen, looked up by ID.
+ * Each ID has one record holding the transaction and the state it is in, so finding a transaction does not get slower
+ * as more of them finish. The queued transactions are also kept in the admission queue and the active ones in a list.
+ * <p>
+ * Transactions that completed or were aborted for good are evicted once they have been finished for the retention period,
+ * so a long run doesn't keep every transaction. Only a bit per ID is kept after that, to still answer whether it was
+ * completed or aborted.
+ */
+public class TransactionRegistry {
+
+    public enum State {
+        Queued, Active, Restarting, Completed, Aborted
+    }
+
+    private static class Record {
+        private final int transID;
+        private Transaction transaction;
+        private State state;
+        private int finishedTime;
+
+        /**
+         * A transaction with this ID has been aborted for good on this server. A cohort can be created again with
+         * the ID of one that was aborted, this stays set.
+         */
+        private boolean aborted;
+
+        private Record(int transID) {
+            this.transID = transID;
+        }
+    }
+
+    /**
+     * A record and when it finished. A record is queued again if its ID is reused and finishes again,
+     * the older entry is then skipped when it comes up.
+     */
+    private static class FinishedEntry {
+        private final Record record;
+        private final int finishedTime;
+
+        private FinishedEntry(Record record, int finishedTime) {
+            this.record = record;
+            this.finishedTime = finishedTime;
+        }
+    }
+
+    private final AdmissionQueue queued;
+    private final List<Transaction> active = new ArrayList<>();
+
+    //Open addressing with linear probing, transID -> record
+    private Record[] records = new Record[64];
+    private int size;
+
+    private final Supplier<Integer> timeProvider;
+    private final int retention;
+    private final Consumer<Transaction> evictionListener;
+
+    /**
+     * Records of finished transactions, in the order they finished
+     */
+    private final ArrayDeque<FinishedEntry> finished = new ArrayDeque<>();
+    private final BitSet evictedCompleted = new BitSet();
+    private final BitSet evictedCompletedMasters = new BitSet();
+    private final BitSet evictedAborted = new BitSet();
+
+    /**
+     * @param retention        how long a finished transaction is kept for, in ticks
+     * @param evictionListener called with every transaction that is evicted
+     */
+    public TransactionRegistry(PriorityProtocol pp, Supplier<Integer> timeProvider, int retention, Consumer<Transaction> evictionListener) {
+        queued = new AdmissionQueue(pp);
+        this.timeProvider = timeProvider;
+        this.retention = retention;
+        this.evictionListener = evictionListener;
+    }
+
+    /**
+     * Moves the transaction to the state. Registers it if it has not been seen.
+     */
+    public void setState(Transaction t, State state) {
+        Record record = getOrAddRecord(t.getID());
+
+        if (record.transaction != null)
+            removeFromList(record.transaction, record.state);
+
+        record.transaction = t;
+        record.state = state;
+        if (state == State.Aborted)
+            record.aborted = true;
+
+        if (state == State.Queued)
+            queued.add(t);
+        else if (state == State.Active)
+            active.add(t);
+        else if (state == State.Completed || state == State.Aborted) {
+            record.finishedTime = timeProvider.get();
+            finished.add(new FinishedEntry(record, record.finishedTime));
+        }
+
+        evictFinished();
+    }
+
+    /**
+     * Evicts the transactions that finished more than the retention period ago
+     */
+    private void evictFinished() {
+        int evictBefore = timeProvider.get() - retention;
+
+        while (!finished.isEmpty() && finished.peek().finishedTime < evictBefore) {
+            FinishedEntry entry = finished.poll();
+            Record record = entry.record;
+
+            //It finished again since, the later entry evicts it
+            if (entry.finishedTime != record.finishedTime)
+                continue;
+
+            //A cohort can be created again with the same ID, it is only evicted once that one finishes too
+            if (record.state != State.Completed && record.state != State.Aborted)
+                continue;
+            if (getRecord(record.transID) != record)
+                continue;
+
+            if (record.state == State.Completed) {
+                evictedCompleted.set(record.transID);
+                if (!(record.transaction instanceof CohortTransaction))
+                    evictedCompletedMasters.set(record.transID);
+            }
+            if (record.aborted)
+                evictedAborted.set(record.transID);
+
+            removeRecord(record.transID);
+            evictionListener.accept(record.transaction);
+        }
+    }
+
+    private void removeFromList(Transaction t, State state) {
+        if (state == State.Queued)
+            queued.remove(t);
+        else if (state == State.Active)
+            active.remove(t);
+    }
+
+    /**
+     * @return the last transaction registered with this ID, null if there is none
+     */
+    public Transaction get(int transID) {
+        Record record = getRecord(transID);
+        return record == null ? null : record.transaction;
+    }
+
+    /**
+     * @return the transaction if it is active, otherwise null
+     */
+    public Transaction getActive(int transID) {
+        Record record = getRecord(transID);
+        return record != null && record.state == State.Active ? record.transaction : null;
+    }
+
+    public boolean isInState(int transID, State state) {
+        Record record = getRecord(transID);
+        if (record == null)
+            return state == State.Completed && evictedCompleted.get(transID);
+        return record.state == state;
+    }
+
+    public boolean hasBeenAborted(int transID) {
+        Record record = getRecord(transID);
+        return (record != null && record.aborted) || evictedAborted.get(transID);
+    }
+
+    /**
+     * @return true if a master transaction with this ID completed before the time. Evicted ones completed before the retention period.
+     */
+    public boolean completedBefore(int transID, int time) {
+        Record record = getRecord(transID);
+        if (record == null)
+            return evictedCompletedMasters.get(transID) && time >= timeProvider.get() - retention;
+
+        Transaction t = record.transaction;
+        return !(t instanceof CohortTransaction) && t.isCompleted() && t.getCompletedTime() < time;
+    }
+
+    public AdmissionQueue getQueued() {
+        return queued;
+    }
+
+    public List<Transaction> getActive() {
+        return active;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private Record getRecord(int transID) {
+        int mask = records.length - 1;
+        for (int i = hash(transID) & mask; records[i] != null; i = (i + 1) & mask)
+            if (records[i].transID == transID)
+                return records[i];
+        return null;
+    }
+
+    private Record getOrAddRecord(int transID) {
+        Record record = getRecord(transID);
+        if (record != null)
+            return record;
+
+        if ((size + 1) * 2 > records.length)
+            grow();
+
+        record = new Record(transID);
+        insert(records, record);
+        size++;
+        return record;
+    }
+
+    /**
+     * Removes the record and shifts back the records after it that would not be found anymore
+     */
+    private void removeRecord(int transID) {
+        int mask = records.length - 1;
+        int i = hash(transID) & mask;
+        while (records[i].transID != transID)
+            i = (i + 1) & mask;
+
+        records[i] = null;
+        size--;
+
+        for (int j = (i + 1) & mask; records[j] != null; j = (j + 1) & mask) {
+            int home = hash(records[j].transID) & mask;
+            //Move it back if its home is not in (i, j]
+            if (((j - home) & mask) >= ((j - i) & mask)) {
+                records[i] = records[j];
+                records[j] = null;
+                i = j;
+            }
+        }
+    }
+
+    private void grow() {
+        Record[] newRecords = new Record[records.length * 2];
+        for (Record record : records)
+            if (record != null)
+                insert(newRecords, record);
+        records = newRecords;
+    }
+
+    private static void insert(Record[] records, Record record) {
+        int mask = records.length - 1;
+        int i = hash(record.transID) & mask;
+        while (records[i] != null)
+            i = (i + 1) & mask;
+        records[i] = record;
+    }
+
+    /**
+     * IDs are handed out in order, so spread them over the table
+     */
+    private static int hash(int transID) {
+        int h = transID * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+}
@@ -0,0 +1,135 @@
+package simulator.server.transactionManager;
+
+import java.util.*;
+
+/**
+ * A pre-generated workload used for common random numbers.
+ * Every server gets its own random stream (derived from the SEED and the server ID) so the arrival times, page sets and deadlines
+ * do not depend on anything else that happens in the simulation. Two simulations sharing a workload see exactly the same transactions,
+ * so the difference in their results comes from the protocols and not from sampling noise.
+ * Workloads are read only once they are created, so one instance can be shared by simulations running in different threads.
+ */
+public class Workload {
+
+    private final String key;
+    private final List<List<Arrival>> arrivalsPerServer = new ArrayList<>();
+    private final int numTransactions;
+
+    /**
+     * The workloads shared by a group of simulations. Whoever runs the simulations owns it,
+     * so the workloads go once the simulations that use them are done.
+     */
+    public static class Cache {
+        private final Map<String, Workload> workloads = new HashMap<>();
+
+        /**
+         * Gets the workload for the given parameters, creating it the first time it is asked for.
+         */
+        public synchronized Workload get(long SEED, int numServers, int numTransPerServer, int arrivalRate, double updateRate, int numPages) {
+            String key = SEED + ":" + numServers + ":" + numTransPerServer + ":" + arrivalRate + ":" + updateRate + ":" + numPages;
+            return workloads.computeIfAbsent(key, k -> new Workload(k, SEED, numServers, numTransPerServer, arrivalRate, updateRate, numPages));
+        }
+    }
+
+    private Workload(String key, long SEED, int numServers, int numTransPerServer, int arrivalRate, double updateRate, int numPages) {
+        this.key = key;
+
+        List<Arrival> allArrivals = new ArrayList<>();
+
+        for (int serverID = 0; serverID < numServers; serverID++) {
+            Random rand = new Random(SEED * 31 + serverID + 1);
+
+            List<Arrival> arrivals = new ArrayList<>();
+            int time = 0;
+            for (int i = 0; i < numTransPerServer; i++) {
+                //The ID is filled in once the arrivals from every server are merged
+                Transaction t = TransactionGenerator.createTransaction(-1, serverID, time, updateRate, rand::nextDouble, () -> (int) (numPages * rand.nextDouble()));
+                arrivals.add(new Arrival(serverID, time, t));
+
+                time += TransactionGenerator.getPoisson(arrivalRate, rand::nextDouble);
+            }
+
+            arrivalsPerServer.add(Collections.unmodifiableList(arrivals));
+            allArrivals.addAll(arrivals);
+        }
+
+        // IDs are given out in arrival order, the same way the IDProvider does it when transactions are generated on the fly
+        allArrivals.sort(Comparator.comparingInt(Arrival::getTime).thenComparingInt(Arrival::getServerID));
+        for (int i = 0; i < allArrivals.size(); i++)
+            allArrivals.get(i).transID = i;
+
+        numTransactions = allArrivals.size();
+    }
+
+    /**
+     * @return the arrivals for the server, in the order they arrive
+     */
+    public List<Arrival> getArrivals(int serverID) {
+        return arrivalsPerServer.get(serverID);
+    }
+
+    public int getNumTransactions() {
+        return numTransactions;
+    }
+
+    /**
+     * Two simulations with the same key saw exactly the same transactions
+     */
+    public String getKey() {
+        return key;
+    }
+
+    /**
+     * A transaction arrival. A fresh Transaction is created from it every time it is replayed since transactions are modified as they run.
+     */
+    public static class Arrival {
+        private int transID;
+        private final int serverID;
+        private final int time;
+        private final int deadline;
+        private final int slackTime;
+        private final int executionTime;
+        private final int[] readPageNums;
+        private final int[] writePageNums;
+
+        private Arrival(int serverID, int time, Transaction t) {
+            this.serverID = serverID;
+            this.time = time;
+            deadline = t.getDeadline();
+            slackTime = t.getSlackTime();
+            executionTime = t.getExecutionTime();
+            readPageNums = t.getAllReadPageNums().stream().mapToInt(Integer::intValue).toArray();
+            writePageNums = t.getAllWritePageNums().stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        public Transaction createTransaction() {
+            Transaction t = new Transaction(transID, serverID, deadline);
+            t.setSlackTime(slackTime);
+            t.setExecutionTime(executionTime);
+
+            for (int pageNum : readPageNums) {
+                t.getAllReadPageNums().add(pageNum);
+                t.getReadPageNums().add(pageNum);
+            }
+            for (int pageNum : writePageNums) {
+                t.getAllWritePageNums().add(pageNum);
+                t.getWritePageNums().add(pageNum);
+            }
+
+            t.setWorkload(readPageNums.length + writePageNums.length);
+            return t;
+        }
+
+        public int getTransID() {
+            return transID;
+        }
+
+        public int getServerID() {
+            return serverID;
+        }
+
+        public int getTime() {
+            return time;
+        }
+    }
+}
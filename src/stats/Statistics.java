@@ -1,7 +1,7 @@
 package stats;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.BitSet;
 
 public class Statistics {
 
@@ -9,28 +9,104 @@ public class Statistics {
     private int completedOnTime, completedLate;
     private int numAborted;
     private int numAbortedAndRestarted;
+    private int earlyAborts;
+    private int repeatedAborts;
+    private int conversionWaits;
+    private long restartDelaySum;
     private int deadlocksFound;
     private int deadlocksResolved;
 
+    private long linkMessages;
+    private long linkBusyTime;
+    private long linkQueueingDelay;
+    private int maxLinkQueueingDelay;
+    private long framesSent;
+    private long messagesInFrames;
 
-    private List<Integer> completedOnTimeTrans = new ArrayList<>();
-    private List<Integer> completedLateTrans = new ArrayList<>();
+
+    private final BitSet completedOnTimeTrans = new BitSet();
+    private final BitSet completedLateTrans = new BitSet();
+
+    /**
+     * Response times (arrival to completion) of the completed transactions, in buckets of RESPONSE_TIME_BUCKET ticks
+     */
+    public static final int RESPONSE_TIME_BUCKET = 10;
+    private long[] responseTimes = new long[64];
+    private long responseTimeSum;
+    private int numResponseTimes;
+
+    private long admissionLimitSum;
+    private int numAdmissionLimits;
 
 
     public void addCompletedOnTime(int id) {
         completedOnTime++;
-        completedOnTimeTrans.add(id);
+        completedOnTimeTrans.set(id);
     }
 
     public void addCompletedLate(int id) {
         completedLate++;
-        completedLateTrans.add(id);
+        completedLateTrans.set(id);
     }
 
     public int getCompletedOnTime() {
         return completedOnTime;
     }
 
+    /**
+     * @return the IDs of the transactions that completed on time
+     */
+    public BitSet getCompletedOnTimeTrans() {
+        return completedOnTimeTrans;
+    }
+
+    /**
+     * Called for every completed master transaction, on time or late
+     */
+    public void addResponseTime(int responseTime) {
+        int bucket = Math.max(0, responseTime) / RESPONSE_TIME_BUCKET;
+        if (bucket >= responseTimes.length)
+            responseTimes = Arrays.copyOf(responseTimes, Math.max(bucket + 1, responseTimes.length * 2));
+
+        responseTimes[bucket]++;
+        responseTimeSum += responseTime;
+        numResponseTimes++;
+    }
+
+    /**
+     * Called with a server's limit on active transactions every time an adaptive one is adjusted
+     */
+    public void addAdmissionLimit(int limit) {
+        admissionLimitSum += limit;
+        numAdmissionLimits++;
+    }
+
+    /**
+     * @return the average of the adjusted limits on active transactions, 0 if they were not adjusted
+     */
+    public double getAverageAdmissionLimit() {
+        return numAdmissionLimits > 0 ? ((double) admissionLimitSum) / numAdmissionLimits : 0;
+    }
+
+    public double getAverageResponseTime() {
+        return numResponseTimes > 0 ? ((double) responseTimeSum) / numResponseTimes : 0;
+    }
+
+    /**
+     * @param percentile between 0 and 1
+     * @return the upper end of the bucket the percentile falls in
+     */
+    public int getResponseTimePercentile(double percentile) {
+        long rank = (long) Math.ceil(percentile * numResponseTimes);
+        long count = 0;
+        for (int bucket = 0; bucket < responseTimes.length; bucket++) {
+            count += responseTimes[bucket];
+            if (count >= rank && count > 0)
+                return (bucket + 1) * RESPONSE_TIME_BUCKET;
+        }
+        return 0;
+    }
+
     public void addTimeout() {
         timeouts++;
     }
@@ -67,6 +143,53 @@ public class Statistics {
         this.numAbortedAndRestarted = numAbortedAndRestarted;
     }
 
+    /**
+     * Called for every master transaction aborted because it was predicted to miss its deadline
+     */
+    public void addEarlyAbort() {
+        earlyAborts++;
+    }
+
+    public int getEarlyAborts() {
+        return earlyAborts;
+    }
+
+    /**
+     * Called for every abort of a master transaction that had already been aborted before
+     */
+    public void addRepeatedAbort() {
+        repeatedAborts++;
+    }
+
+    public int getRepeatedAborts() {
+        return repeatedAborts;
+    }
+
+    /**
+     * Called every time converting a lock has to wait for other transactions' locks
+     */
+    public void addConversionWait() {
+        conversionWaits++;
+    }
+
+    public int getConversionWaits() {
+        return conversionWaits;
+    }
+
+    /**
+     * Called with the ticks between the abort and the restart of every restarted master transaction
+     */
+    public void addRestartDelay(int delay) {
+        restartDelaySum += delay;
+    }
+
+    /**
+     * @return the average ticks a restarted transaction waited to restart
+     */
+    public double getAverageRestartDelay() {
+        return numAbortedAndRestarted > 0 ? ((double) restartDelaySum) / numAbortedAndRestarted : 0;
+    }
+
     public int getDeadlocksFound() {
         return deadlocksFound;
     }
@@ -84,4 +207,50 @@ public class Statistics {
     public void addDeadlockResolved() {
         deadlocksResolved++;
     }
+
+    /**
+     * Called every time a link starts sending a message
+     */
+    public void addLinkTransmission(int transmissionTime, int queueingDelay) {
+        linkMessages++;
+        linkBusyTime += transmissionTime;
+        linkQueueingDelay += queueingDelay;
+        maxLinkQueueingDelay = Math.max(maxLinkQueueingDelay, queueingDelay);
+    }
+
+    /**
+     * Called every time a link sends a frame. The messages in it were already counted by addLinkTransmission.
+     */
+    public void addFrame(int numMessages, int transmissionTime) {
+        framesSent++;
+        messagesInFrames += numMessages;
+        linkBusyTime += transmissionTime;
+    }
+
+    public long getFramesSent() {
+        return framesSent;
+    }
+
+    public double getAverageMessagesPerFrame() {
+        return framesSent > 0 ? ((double) messagesInFrames) / framesSent : 0;
+    }
+
+    /**
+     * @return the number of messages sent over links, counting every hop
+     */
+    public long getLinkMessages() {
+        return linkMessages;
+    }
+
+    public long getLinkBusyTime() {
+        return linkBusyTime;
+    }
+
+    public double getAverageLinkQueueingDelay() {
+        return linkMessages > 0 ? ((double) linkQueueingDelay) / linkMessages : 0;
+    }
+
+    public int getMaxLinkQueueingDelay() {
+        return maxLinkQueueingDelay;
+    }
 }
\ No newline at end of file
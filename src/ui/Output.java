@@ -22,7 +22,7 @@ public class Output extends JPanel{
     private String[] backgroundColorsForServers;
 
 
-    public Output() throws HeadlessException {
+    public Output(int numServers) throws HeadlessException {
         super(new BorderLayout());
         txtArea = new JTextPane();
         txtArea.setEditable(false);
@@ -57,7 +57,7 @@ public class Output extends JPanel{
 
         JComboBox<String> serverSelector = new JComboBox<>();
         serverSelector.addItem(ALL);
-        for (int i = 0; i < 8; i++)
+        for (int i = 0; i < numServers; i++)
             serverSelector.addItem(""+i);
         serverSelector.setLightWeightPopupEnabled(false);
 
@@ -156,7 +156,7 @@ public class Output extends JPanel{
 
     private String getBackgroundColorForServer(String serverID) {
         try{
-            return backgroundColorsForServers[Integer.parseInt(serverID)];
+            return backgroundColorsForServers[Integer.parseInt(serverID) % backgroundColorsForServers.length];
         }
         catch(Exception e){
             e.printStackTrace();